@@ -0,0 +1,65 @@
+#!/usr/bin/env bash
+#
+# Startup benchmark: reports time-to-first-request and resident memory.
+#
+# Each run launches the application, polls GET /api/sensors/0 (a real repository lookup,
+# answered with 404) until it responds, then records the elapsed time and the VmRSS of the
+# JVM process before stopping it.
+#
+# Usage:
+#   scripts/startup/benchmark.sh jar  [extra application arguments...]   # plain fat jar
+#   scripts/startup/benchmark.sh fast [extra application arguments...]   # AOT + AppCDS
+#
+# Environment: RUNS (default 5), PORT (default 8080), PROFILES, JAR, OUT.
+#
+set -euo pipefail
+
+MODE=${1:?usage: benchmark.sh jar|fast [args...]}
+shift
+RUNS=${RUNS:-5}
+PORT=${PORT:-8080}
+JAR=${JAR:-target/spring-boot-iot-api-1.0.0.jar}
+OUT=${OUT:-target/startup}
+
+case "$MODE" in
+    jar)
+        PROFILES=${PROFILES:-prod}
+        CMD=(java -jar "$JAR")
+        ;;
+    fast)
+        PROFILES=${PROFILES:-prod,fast-startup}
+        CMD=(java -XX:SharedArchiveFile="$OUT/application.jsa" -Dspring.aot.enabled=true
+             -jar "$OUT/$(basename "$JAR")")
+        ;;
+    *)
+        echo "Unknown mode: $MODE (expected jar or fast)" >&2
+        exit 1
+        ;;
+esac
+
+total_ms=0
+total_rss=0
+for run in $(seq 1 "$RUNS"); do
+    start=$(date +%s%N)
+    "${CMD[@]}" --server.port="$PORT" --spring.profiles.active="$PROFILES" "$@" > /dev/null 2>&1 &
+    pid=$!
+
+    until curl -s -o /dev/null "http://localhost:$PORT/api/sensors/0"; do
+        if ! kill -0 "$pid" 2> /dev/null; then
+            echo "Application exited before serving a request" >&2
+            exit 1
+        fi
+        sleep 0.01
+    done
+    elapsed_ms=$(( ($(date +%s%N) - start) / 1000000 ))
+    rss_kb=$(awk '/VmRSS/ {print $2}' "/proc/$pid/status")
+
+    kill "$pid"
+    wait "$pid" 2> /dev/null || true
+
+    echo "run $run: time-to-first-request=${elapsed_ms} ms rss=$((rss_kb / 1024)) MB"
+    total_ms=$((total_ms + elapsed_ms))
+    total_rss=$((total_rss + rss_kb))
+done
+
+echo "$MODE ($PROFILES): mean time-to-first-request=$((total_ms / RUNS)) ms mean rss=$((total_rss / RUNS / 1024)) MB"
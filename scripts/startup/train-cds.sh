@@ -0,0 +1,27 @@
+#!/usr/bin/env bash
+#
+# Produces an AppCDS archive for the fast-startup profile.
+#
+# The jar is extracted (CDS needs classes loaded from plain jars on the class path) and a
+# training run starts the application context and exits as soon as it is refreshed, dumping
+# every loaded class into target/startup/application.jsa.
+#
+# Usage (after `mvn -Pfast-startup package`):
+#   scripts/startup/train-cds.sh [extra application arguments...]
+#
+set -euo pipefail
+
+JAR=${JAR:-target/spring-boot-iot-api-1.0.0.jar}
+OUT=${OUT:-target/startup}
+PROFILES=${PROFILES:-prod,fast-startup}
+
+rm -rf "$OUT"
+java -Djarmode=tools -jar "$JAR" extract --destination "$OUT"
+
+java -XX:ArchiveClassesAtExit="$OUT/application.jsa" \
+     -Dspring.aot.enabled=true \
+     -Dspring.context.exit=onRefresh \
+     -jar "$OUT/$(basename "$JAR")" \
+     --spring.profiles.active="$PROFILES" "$@"
+
+echo "CDS archive written to $OUT/application.jsa"
@@ -1,6 +1,10 @@
 import java.io.OutputStream;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
 import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
 import java.net.URL;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
@@ -13,6 +17,10 @@ import java.util.Random;
  * - Sends data every ~30 seconds with ±10 seconds random variation
  * - Sends temperature, humidity, and/or pressure (1, 2, or 3 fields randomly)
  * - Sometimes skips sending data (simulating packet loss)
+ *
+ * Usage: java SensorSimulator [--udp host:port]
+ * With --udp, readings are sent as compact binary datagrams to the UDP ingest listener
+ * instead of JSON over HTTP.
  */
 public class SensorSimulator {
     
@@ -25,9 +33,24 @@ public class SensorSimulator {
     
     private static final Random random = new Random();
     
+    // UDP target (null = send over HTTP)
+    private static InetSocketAddress udpTarget;
+    
     public static void main(String[] args) {
+        if (args.length == 2 && args[0].equals("--udp")) {
+            String[] hostPort = args[1].split(":");
+            udpTarget = new InetSocketAddress(hostPort[0], Integer.parseInt(hostPort[1]));
+        } else if (args.length > 0) {
+            System.out.println("Usage: java SensorSimulator [--udp host:port]");
+            return;
+        }
+        
         System.out.println("=== IoT Sensor Simulator (Java) ===");
-        System.out.println("API URL: " + API_URL);
+        if (udpTarget != null) {
+            System.out.println("UDP target: " + udpTarget.getHostString() + ":" + udpTarget.getPort());
+        } else {
+            System.out.println("API URL: " + API_URL);
+        }
         System.out.println("Sensor: " + SENSOR_NAME);
         System.out.println("Location: " + LOCATION);
         System.out.println("Interval: ~" + BASE_INTERVAL + "s (±" + TIME_VARIATION + "s)");
@@ -165,6 +188,11 @@ public class SensorSimulator {
      * Send sensor data to API
      */
     private static void sendData(SensorData data) throws Exception {
+        if (udpTarget != null) {
+            sendDatagram(data);
+            return;
+        }
+        
         // Build JSON payload
         StringBuilder json = new StringBuilder("{");
         json.append("\"name\":\"").append(data.name).append("\",");
@@ -204,6 +232,40 @@ public class SensorSimulator {
         conn.disconnect();
     }
     
+    /**
+     * Send sensor data as a compact UDP datagram:
+     * version (1 byte), flags (1 byte: bit 0 temperature, bit 1 humidity, bit 2 pressure),
+     * name and location (1 byte length + UTF-8), then each present value as a 4-byte
+     * signed integer in hundredths.
+     */
+    private static void sendDatagram(SensorData data) throws Exception {
+        byte[] name = data.name.getBytes(StandardCharsets.UTF_8);
+        byte[] location = data.location.getBytes(StandardCharsets.UTF_8);
+        int flags = (data.temperature != null ? 1 : 0)
+                | (data.humidity != null ? 2 : 0)
+                | (data.pressure != null ? 4 : 0);
+        
+        ByteBuffer buffer = ByteBuffer.allocate(4 + name.length + location.length + 12);
+        buffer.put((byte) 1);
+        buffer.put((byte) flags);
+        buffer.put((byte) name.length).put(name);
+        buffer.put((byte) location.length).put(location);
+        if (data.temperature != null) {
+            buffer.putInt((int) Math.round(data.temperature * 100));
+        }
+        if (data.humidity != null) {
+            buffer.putInt((int) Math.round(data.humidity * 100));
+        }
+        if (data.pressure != null) {
+            buffer.putInt((int) Math.round(data.pressure * 100));
+        }
+        
+        try (DatagramSocket socket = new DatagramSocket()) {
+            socket.send(new DatagramPacket(buffer.array(), buffer.position(), udpTarget));
+        }
+        log("SENT - " + buffer.position() + " byte datagram");
+    }
+    
     /**
      * Log message with timestamp
      */
@@ -0,0 +1,133 @@
+package com.iot.sensors.archive;
+
+import com.iot.sensors.dto.SensorReading;
+import com.iot.sensors.exception.PurgeInProgressException;
+import com.iot.sensors.repository.SensorRepository;
+import com.iot.sensors.service.SensorPurgeService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.stream.Stream;
+
+/**
+ * Moves readings older than {@code iot.archive.after-days} from the {@code sensors} table into
+ * the {@link SegmentArchive}, one window of {@code iot.archive.window-hours} at a time, oldest
+ * first. A window is streamed from the database and committed to the archive, then exactly
+ * the archived rows are deleted by id through the chunked {@link SensorPurgeService}; if the
+ * run stops in between, the next run finishes deleting them first. Rows that arrive below the
+ * watermark later (backfills, generated datasets, restores) are archived into a late window
+ * at the current watermark before anything else, so no row is deleted without a copy.
+ * Readers never see duplicates: they split queries at the watermark or skip archived ids that
+ * are still in the table.
+ */
+@Component
+@Lazy(false)
+@ConditionalOnProperty(name = "iot.archive.enabled", havingValue = "true")
+public class ArchiveTieringJob {
+
+    private static final Logger log = LoggerFactory.getLogger(ArchiveTieringJob.class);
+
+    private final SensorRepository sensorRepository;
+    private final SegmentArchive segmentArchive;
+    private final SensorPurgeService sensorPurgeService;
+    private final TransactionTemplate readTransaction;
+    private final long afterDays;
+    private final long windowSeconds;
+
+    public ArchiveTieringJob(SensorRepository sensorRepository,
+                             SegmentArchive segmentArchive,
+                             SensorPurgeService sensorPurgeService,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${iot.archive.after-days:30}") long afterDays,
+                             @Value("${iot.archive.window-hours:168}") long windowHours) {
+        this.sensorRepository = sensorRepository;
+        this.segmentArchive = segmentArchive;
+        this.sensorPurgeService = sensorPurgeService;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.afterDays = afterDays;
+        this.windowSeconds = windowHours * 3600;
+    }
+
+    @Scheduled(cron = "${iot.archive.cron:0 30 2 * * *}")
+    public void archiveOldReadings() {
+        try {
+            archive(LocalDateTime.now().minusDays(afterDays));
+        } catch (PurgeInProgressException ex) {
+            log.warn("Archive run skipped: {}", ex.getMessage());
+        }
+    }
+
+    /**
+     * Archives the rows left below the watermark, then every complete window that ends at or
+     * before {@code cutoff}.
+     *
+     * @return the number of archived readings
+     * @throws PurgeInProgressException if a purge is already running
+     */
+    public long archive(LocalDateTime cutoff) {
+        purgeArchived();
+        long archived = 0;
+        LocalDateTime watermark = segmentArchive.getWatermark();
+        LocalDateTime oldest = sensorRepository.findOldestMeasurementTime();
+        if (watermark != null && oldest != null && oldest.isBefore(watermark)) {
+            long late = archiveWindow(oldest, watermark);
+            archived += late;
+            log.info("Archived {} late readings measured before {}", late, watermark);
+            purgeArchived();
+            oldest = sensorRepository.findOldestMeasurementTime();
+        }
+        while (oldest != null) {
+            LocalDateTime archivedUntil = segmentArchive.getWatermark();
+            LocalDateTime aligned = alignToWindow(oldest);
+            // The watermark is only unaligned if iot.archive.window-hours changed since it was written
+            LocalDateTime windowStart = archivedUntil != null && archivedUntil.isAfter(aligned) ? archivedUntil : aligned;
+            LocalDateTime windowEnd = alignToWindow(windowStart).plusSeconds(windowSeconds);
+            if (windowEnd.isAfter(cutoff)) {
+                break;
+            }
+            long rows = archiveWindow(windowStart, windowEnd);
+            archived += rows;
+            log.info("Archived {} readings measured in [{}, {})", rows, windowStart, windowEnd);
+            purgeArchived();
+            oldest = sensorRepository.findOldestMeasurementTime();
+        }
+        return archived;
+    }
+
+    private long archiveWindow(LocalDateTime windowStart, LocalDateTime windowEnd) {
+        return readTransaction.execute(status -> {
+            try (Stream<SensorReading> readings = sensorRepository.streamReadingsForArchive(windowStart, windowEnd)) {
+                return segmentArchive.archiveWindow(windowEnd, readings);
+            }
+        });
+    }
+
+    /**
+     * Deletes the table rows of the committed windows by id, then records them as purged.
+     */
+    private void purgeArchived() {
+        LocalDateTime watermark = segmentArchive.getWatermark();
+        if (watermark == null) {
+            return;
+        }
+        try (Stream<SensorReading> readings = segmentArchive.findUnpurged()) {
+            sensorPurgeService.purgeReadings(watermark, readings, "archive");
+        }
+        segmentArchive.markPurged();
+    }
+
+    private LocalDateTime alignToWindow(LocalDateTime time) {
+        long seconds = Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), windowSeconds) * windowSeconds;
+        return LocalDateTime.ofEpochSecond(seconds, 0, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,37 @@
+package com.iot.sensors.archive;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Big-endian bit reader over a region of a (typically memory-mapped) buffer. Uses absolute
+ * reads only, so the buffer can be shared between readers.
+ */
+final class BitInput {
+
+    private final ByteBuffer buffer;
+    private final int start;
+    private long position;
+
+    BitInput(ByteBuffer buffer, int start) {
+        this.buffer = buffer;
+        this.start = start;
+    }
+
+    boolean readBit() {
+        return readBits(1) != 0;
+    }
+
+    long readBits(int count) {
+        long result = 0;
+        while (count > 0) {
+            int available = 8 - (int) (position & 7);
+            int take = Math.min(available, count);
+            int current = buffer.get(start + (int) (position >>> 3)) & 0xFF;
+            int chunk = (current >>> (available - take)) & ((1 << take) - 1);
+            result = (result << take) | chunk;
+            position += take;
+            count -= take;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,46 @@
+package com.iot.sensors.archive;
+
+import java.util.Arrays;
+
+/**
+ * Growable big-endian bit stream used by the block encoder.
+ */
+final class BitOutput {
+
+    private byte[] bytes;
+    private long bitLength;
+
+    BitOutput(int initialBytes) {
+        this.bytes = new byte[Math.max(16, initialBytes)];
+    }
+
+    void writeBit(boolean bit) {
+        writeBits(bit ? 1 : 0, 1);
+    }
+
+    /**
+     * Writes the lowest {@code count} bits of {@code value}, most significant first.
+     */
+    void writeBits(long value, int count) {
+        while (count > 0) {
+            int index = (int) (bitLength >>> 3);
+            if (index == bytes.length) {
+                bytes = Arrays.copyOf(bytes, bytes.length * 2);
+            }
+            int free = 8 - (int) (bitLength & 7);
+            int take = Math.min(free, count);
+            int chunk = (int) (value >>> (count - take)) & ((1 << take) - 1);
+            bytes[index] |= (byte) (chunk << (free - take));
+            bitLength += take;
+            count -= take;
+        }
+    }
+
+    int byteLength() {
+        return (int) ((bitLength + 7) >>> 3);
+    }
+
+    byte[] bytes() {
+        return bytes;
+    }
+}
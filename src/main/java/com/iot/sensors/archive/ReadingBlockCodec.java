@@ -0,0 +1,285 @@
+package com.iot.sensors.archive;
+
+import com.iot.sensors.dto.SensorReading;
+import com.iot.sensors.model.Metric;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Columnar encoding of the readings of one sensor (name and location) over one time window.
+ * <p>
+ * A block starts with a fixed header (name, location, row count, time and id bounds, non-null
+ * count per metric) so queries can prune and count blocks without decoding them. It is followed
+ * by a bit stream with one column after another:
+ * <ul>
+ *     <li>ids and timestamps (epoch microseconds) are delta-of-delta encoded;</li>
+ *     <li>each metric is a presence bitmap, omitted when all or none of the values are present,
+ *     followed by the present values XOR-encoded against their predecessor (Gorilla).</li>
+ * </ul>
+ * The delta-of-delta buckets are wider than Gorilla's second-based ones, since timestamps are
+ * stored with the database's microsecond precision and device clocks jitter.
+ */
+final class ReadingBlockCodec {
+
+    /** Value bits of each delta-of-delta bucket; the prefix of bucket i is i + 1 ones and a zero. */
+    private static final int[] DELTA_BUCKET_BITS = {7, 12, 20, 28};
+    private static final int RAW_DELTA_PREFIX = 5;
+
+    private ReadingBlockCodec() {
+    }
+
+    /**
+     * Block metadata read from the header; {@code bodyOffset} is where the bit stream starts.
+     * Times are epoch microseconds (UTC).
+     */
+    record BlockHeader(String name, String location, int count, long minTime, long maxTime, long minId, long maxId,
+                       int temperatureCount, int humidityCount, int pressureCount, int bodyOffset) {
+    }
+
+    /**
+     * Encodes readings that share name and location, in ascending measurement time.
+     */
+    static byte[] encode(List<SensorReading> readings) {
+        int count = readings.size();
+        long[] ids = new long[count];
+        long[] times = new long[count];
+        for (int i = 0; i < count; i++) {
+            SensorReading reading = readings.get(i);
+            ids[i] = reading.getId();
+            times[i] = toEpochMicros(reading.getMeasurementTime());
+        }
+        Double[] temperature = column(readings, Metric.TEMPERATURE);
+        Double[] humidity = column(readings, Metric.HUMIDITY);
+        Double[] pressure = column(readings, Metric.PRESSURE);
+
+        BitOutput body = new BitOutput(count * 12);
+        writeDeltas(body, ids);
+        writeDeltas(body, times);
+        writeMetric(body, temperature);
+        writeMetric(body, humidity);
+        writeMetric(body, pressure);
+
+        byte[] name = readings.get(0).getName().getBytes(StandardCharsets.UTF_8);
+        byte[] location = readings.get(0).getLocation().getBytes(StandardCharsets.UTF_8);
+        long minId = Long.MAX_VALUE;
+        long maxId = Long.MIN_VALUE;
+        for (long id : ids) {
+            minId = Math.min(minId, id);
+            maxId = Math.max(maxId, id);
+        }
+        ByteBuffer block = ByteBuffer.allocate(2 + name.length + 2 + location.length + 4 + 4 * 8 + 3 * 4
+                + body.byteLength());
+        block.putShort((short) name.length).put(name);
+        block.putShort((short) location.length).put(location);
+        block.putInt(count);
+        block.putLong(times[0]).putLong(times[count - 1]);
+        block.putLong(minId).putLong(maxId);
+        block.putInt(nonNull(temperature)).putInt(nonNull(humidity)).putInt(nonNull(pressure));
+        block.put(body.bytes(), 0, body.byteLength());
+        return block.array();
+    }
+
+    static BlockHeader readHeader(ByteBuffer block) {
+        int position = 0;
+        int nameLength = Short.toUnsignedInt(block.getShort(position));
+        String name = readString(block, position + 2, nameLength);
+        position += 2 + nameLength;
+        int locationLength = Short.toUnsignedInt(block.getShort(position));
+        String location = readString(block, position + 2, locationLength);
+        position += 2 + locationLength;
+        return new BlockHeader(name, location, block.getInt(position),
+                block.getLong(position + 4), block.getLong(position + 12),
+                block.getLong(position + 20), block.getLong(position + 28),
+                block.getInt(position + 36), block.getInt(position + 40), block.getInt(position + 44),
+                position + 48);
+    }
+
+    /**
+     * Decodes the readings measured in {@code [fromMicros, toMicros)}.
+     */
+    static List<SensorReading> decode(ByteBuffer block, long fromMicros, long toMicros) {
+        BlockHeader header = readHeader(block);
+        int count = header.count();
+        BitInput body = new BitInput(block, header.bodyOffset());
+        long[] ids = readDeltas(body, count);
+        long[] times = readDeltas(body, count);
+        Double[] temperature = readMetric(body, count, header.temperatureCount());
+        Double[] humidity = readMetric(body, count, header.humidityCount());
+        Double[] pressure = readMetric(body, count, header.pressureCount());
+
+        List<SensorReading> readings = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            if (times[i] >= fromMicros && times[i] < toMicros) {
+                readings.add(new SensorReading(ids[i], header.name(), header.location(), fromEpochMicros(times[i]),
+                        temperature[i], humidity[i], pressure[i]));
+            }
+        }
+        return readings;
+    }
+
+    static long toEpochMicros(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + time.getNano() / 1_000;
+    }
+
+    static LocalDateTime fromEpochMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+
+    private static void writeDeltas(BitOutput out, long[] values) {
+        out.writeBits(values[0], 64);
+        long previousDelta = 0;
+        for (int i = 1; i < values.length; i++) {
+            long delta = values[i] - values[i - 1];
+            long deltaOfDelta = delta - previousDelta;
+            previousDelta = delta;
+            if (deltaOfDelta == 0) {
+                out.writeBit(false);
+                continue;
+            }
+            long zigzag = (deltaOfDelta << 1) ^ (deltaOfDelta >> 63);
+            int bucket = 0;
+            while (bucket < DELTA_BUCKET_BITS.length && zigzag >>> DELTA_BUCKET_BITS[bucket] != 0) {
+                bucket++;
+            }
+            if (bucket < DELTA_BUCKET_BITS.length) {
+                out.writeBits((1L << (bucket + 2)) - 2, bucket + 2);
+                out.writeBits(zigzag, DELTA_BUCKET_BITS[bucket]);
+            } else {
+                out.writeBits((1L << RAW_DELTA_PREFIX) - 1, RAW_DELTA_PREFIX);
+                out.writeBits(deltaOfDelta, 64);
+            }
+        }
+    }
+
+    private static long[] readDeltas(BitInput in, int count) {
+        long[] values = new long[count];
+        values[0] = in.readBits(64);
+        long delta = 0;
+        for (int i = 1; i < count; i++) {
+            int ones = 0;
+            while (ones < RAW_DELTA_PREFIX && in.readBit()) {
+                ones++;
+            }
+            if (ones == RAW_DELTA_PREFIX) {
+                delta += in.readBits(64);
+            } else if (ones > 0) {
+                long zigzag = in.readBits(DELTA_BUCKET_BITS[ones - 1]);
+                delta += (zigzag >>> 1) ^ -(zigzag & 1);
+            }
+            values[i] = values[i - 1] + delta;
+        }
+        return values;
+    }
+
+    private static void writeMetric(BitOutput out, Double[] values) {
+        int present = nonNull(values);
+        if (present == 0) {
+            return;
+        }
+        if (present < values.length) {
+            for (Double value : values) {
+                out.writeBit(value != null);
+            }
+        }
+        long previous = 0;
+        int previousLeading = -1;
+        int previousTrailing = 0;
+        boolean first = true;
+        for (Double value : values) {
+            if (value == null) {
+                continue;
+            }
+            long bits = Double.doubleToRawLongBits(value);
+            if (first) {
+                out.writeBits(bits, 64);
+                first = false;
+                previous = bits;
+                continue;
+            }
+            long xor = bits ^ previous;
+            previous = bits;
+            if (xor == 0) {
+                out.writeBit(false);
+                continue;
+            }
+            int leading = Math.min(Long.numberOfLeadingZeros(xor), 31);
+            int trailing = Long.numberOfTrailingZeros(xor);
+            if (previousLeading >= 0 && leading >= previousLeading && trailing >= previousTrailing) {
+                // Meaningful bits fit in the previous window
+                out.writeBits(0b10, 2);
+                out.writeBits(xor >>> previousTrailing, 64 - previousLeading - previousTrailing);
+            } else {
+                int significant = 64 - leading - trailing;
+                out.writeBits(0b11, 2);
+                out.writeBits(leading, 5);
+                out.writeBits(significant - 1, 6);
+                out.writeBits(xor >>> trailing, significant);
+                previousLeading = leading;
+                previousTrailing = trailing;
+            }
+        }
+    }
+
+    private static Double[] readMetric(BitInput in, int count, int present) {
+        Double[] values = new Double[count];
+        if (present == 0) {
+            return values;
+        }
+        boolean[] mask = new boolean[count];
+        for (int i = 0; i < count; i++) {
+            mask[i] = present == count || in.readBit();
+        }
+        long previous = 0;
+        int leading = 0;
+        int trailing = 0;
+        boolean first = true;
+        for (int i = 0; i < count; i++) {
+            if (!mask[i]) {
+                continue;
+            }
+            if (first) {
+                previous = in.readBits(64);
+                first = false;
+            } else if (in.readBit()) {
+                if (in.readBit()) {
+                    leading = (int) in.readBits(5);
+                    int significant = (int) in.readBits(6) + 1;
+                    trailing = 64 - leading - significant;
+                }
+                previous ^= in.readBits(64 - leading - trailing) << trailing;
+            }
+            values[i] = Double.longBitsToDouble(previous);
+        }
+        return values;
+    }
+
+    private static Double[] column(List<SensorReading> readings, Metric metric) {
+        Double[] values = new Double[readings.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = metric.valueOf(readings.get(i));
+        }
+        return values;
+    }
+
+    private static int nonNull(Double[] values) {
+        int present = 0;
+        for (Double value : values) {
+            if (value != null) {
+                present++;
+            }
+        }
+        return present;
+    }
+
+    private static String readString(ByteBuffer block, int offset, int length) {
+        byte[] bytes = new byte[length];
+        block.get(offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,682 @@
+package com.iot.sensors.archive;
+
+import com.iot.sensors.archive.ReadingBlockCodec.BlockHeader;
+import com.iot.sensors.dto.ArchiveStatsResponse;
+import com.iot.sensors.dto.DeviceSummary;
+import com.iot.sensors.dto.SensorReading;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import java.util.zip.CRC32;
+
+/**
+ * Cold tier for old readings: append-only segment files of compressed columnar blocks (see
+ * {@link ReadingBlockCodec}), one block per sensor per archived time window, read through
+ * memory-mapped I/O. Enabled with {@code iot.archive.enabled=true}.
+ * <p>
+ * Each record in a segment is {@code [type][length][crc32][payload]}. A window is written as
+ * its blocks followed by a commit record carrying the window end, and is only visible once
+ * the commit record has been forced to disk. On startup, segments are scanned to rebuild the
+ * in-memory block index and anything after the last commit (a window torn by a crash) is
+ * truncated, so the commit position doubles as the archive watermark: every reading measured
+ * before it is archived.
+ * <p>
+ * Committed blocks stay "unpurged" until their rows have been deleted from the table and a
+ * purged record has been written ({@link #markPurged()}), so an interrupted tiering run can
+ * delete exactly the rows that were copied, and nothing else, when it resumes.
+ * <p>
+ * Purges and retention delete archived readings with tombstone records ("everything measured
+ * before a time, optionally in one location"): readers skip what a tombstone covers, and
+ * leading segments whose blocks are all covered are deleted from disk.
+ */
+@Component
+@ConditionalOnProperty(name = "iot.archive.enabled", havingValue = "true")
+public class SegmentArchive implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(SegmentArchive.class);
+
+    private static final byte BLOCK_RECORD = 1;
+    private static final byte COMMIT_RECORD = 2;
+    private static final byte PURGED_RECORD = 3;
+    private static final byte TOMBSTONE_RECORD = 4;
+    private static final int RECORD_HEADER_BYTES = 9;
+    private static final Pattern SEGMENT_NAME = Pattern.compile("segment-(\\d{6})\\.seg");
+
+    private final Path directory;
+    private final long segmentMaxBytes;
+    private final int maxBlockRows;
+    private final Map<Integer, MappedByteBuffer> mappings = new ConcurrentHashMap<>();
+
+    private volatile BlockIndex index = BlockIndex.EMPTY;
+
+    // Guarded by this
+    private List<BlockRef> unpurged = List.of();
+    private FileChannel writer;
+    private int activeSegment;
+    private long activeSize;
+
+    public SegmentArchive(@Value("${iot.archive.directory:data/archive}") String directory,
+                          @Value("${iot.archive.segment-max-bytes:67108864}") long segmentMaxBytes,
+                          @Value("${iot.archive.max-block-rows:10000}") int maxBlockRows) {
+        if (segmentMaxBytes <= 0 || segmentMaxBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("iot.archive.segment-max-bytes must be between 1 and "
+                    + Integer.MAX_VALUE);
+        }
+        this.directory = Paths.get(directory);
+        this.segmentMaxBytes = segmentMaxBytes;
+        this.maxBlockRows = maxBlockRows;
+        try {
+            recover();
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not open archive in " + this.directory, ex);
+        }
+    }
+
+    /**
+     * Appends the readings of one window and commits it. Readings must be ordered by name,
+     * location and measurement time; every run of readings of the same sensor becomes one block
+     * (split after {@code iot.archive.max-block-rows} rows). If anything fails, the partially
+     * written window is truncated away and the watermark does not move. A window that adds no
+     * readings and does not move the watermark is not written.
+     *
+     * @return the number of archived readings
+     */
+    public synchronized long archiveWindow(LocalDateTime windowEnd, Stream<SensorReading> readings) {
+        Iterator<SensorReading> iterator = readings.iterator();
+        LocalDateTime watermark = index.watermark();
+        if (!iterator.hasNext() && watermark != null && !windowEnd.isAfter(watermark)) {
+            return 0;
+        }
+        int startSegment = activeSegment;
+        long startSize = activeSize;
+        List<BlockRef> written = new ArrayList<>();
+        long archived = 0;
+        try {
+            List<SensorReading> block = new ArrayList<>();
+            while (iterator.hasNext()) {
+                SensorReading reading = iterator.next();
+                if (!block.isEmpty() && (block.size() >= maxBlockRows || !sameSensor(block.get(0), reading))) {
+                    written.add(appendBlock(block));
+                    archived += block.size();
+                    block.clear();
+                }
+                block.add(reading);
+            }
+            if (!block.isEmpty()) {
+                written.add(appendBlock(block));
+                archived += block.size();
+            }
+            ByteBuffer commit = ByteBuffer.allocate(8).putLong(0, ReadingBlockCodec.toEpochMicros(windowEnd));
+            append(COMMIT_RECORD, commit.array());
+            writer.force(false);
+        } catch (IOException ex) {
+            rollback(startSegment, startSize);
+            throw new UncheckedIOException("Could not archive window ending " + windowEnd, ex);
+        } catch (RuntimeException ex) {
+            rollback(startSegment, startSize);
+            throw ex;
+        }
+        index = index.with(written, windowEnd);
+        List<BlockRef> pending = new ArrayList<>(unpurged);
+        pending.addAll(written);
+        unpurged = List.copyOf(pending);
+        return archived;
+    }
+
+    /**
+     * Readings of the committed windows whose rows have not been deleted from the table yet,
+     * in block order.
+     */
+    public synchronized Stream<SensorReading> findUnpurged() {
+        return unpurged.stream()
+                .flatMap(ref -> ReadingBlockCodec.decode(payload(ref), Long.MIN_VALUE, Long.MAX_VALUE).stream());
+    }
+
+    /**
+     * Records that the rows of every window committed so far have been deleted from the table.
+     */
+    public synchronized void markPurged() {
+        if (unpurged.isEmpty()) {
+            return;
+        }
+        try {
+            append(PURGED_RECORD, new byte[0]);
+            writer.force(false);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not mark archived readings as purged", ex);
+        }
+        unpurged = List.of();
+    }
+
+    /**
+     * Deletes the archived readings measured before {@code before}, in one location or in all
+     * of them, with a tombstone record, then removes the leading segments that hold nothing
+     * visible anymore.
+     */
+    public synchronized void delete(LocalDateTime before, String location) {
+        long beforeMicros = ReadingBlockCodec.toEpochMicros(before);
+        try {
+            appendTombstone(beforeMicros, location);
+            writer.force(false);
+            index = index.withTombstone(beforeMicros, location);
+            dropHiddenSegments();
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not delete archived readings before " + before, ex);
+        }
+    }
+
+    /**
+     * Every reading measured before the watermark has been archived; {@code null} while the
+     * archive is empty.
+     */
+    public LocalDateTime getWatermark() {
+        return index.watermark();
+    }
+
+    /**
+     * Archived readings measured in {@code [from, to)}, optionally restricted to one sensor name
+     * and/or location, in (measurement time, id) order. Blocks of different sensors, and late
+     * blocks, overlap in time, so the decoded blocks are merged; a block is decoded only once
+     * the merge reaches its first reading.
+     */
+    public Stream<SensorReading> find(String name, String location, LocalDateTime from, LocalDateTime to) {
+        long fromMicros = from != null ? ReadingBlockCodec.toEpochMicros(from) : Long.MIN_VALUE;
+        long toMicros = to != null ? ReadingBlockCodec.toEpochMicros(to) : Long.MAX_VALUE;
+        BlockIndex current = index;
+        List<BlockRef> blocks = candidates(current, name, location, fromMicros, toMicros)
+                .sorted(Comparator.comparingLong(BlockRef::minTime))
+                .collect(Collectors.toList());
+        Iterator<SensorReading> merged = new BlockMerge(blocks, ref -> ReadingBlockCodec.decode(payload(ref),
+                Math.max(fromMicros, current.visibleFrom(ref)), toMicros));
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(merged,
+                Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Archived sensors (name and location) with readings in {@code [from, to)}, optionally
+     * restricted to one name. Blocks fully inside the range are summarized from their headers.
+     */
+    public List<DeviceSummary> findDevices(String name, LocalDateTime from, LocalDateTime to) {
+        long fromMicros = ReadingBlockCodec.toEpochMicros(from);
+        long toMicros = ReadingBlockCodec.toEpochMicros(to);
+        Map<List<String>, long[]> devices = new LinkedHashMap<>();
+        BlockIndex current = index;
+        for (BlockRef ref : candidates(current, name, null, fromMicros, toMicros).collect(Collectors.toList())) {
+            long count;
+            long maxTime;
+            long visibleFrom = Math.max(fromMicros, current.visibleFrom(ref));
+            if (ref.minTime() >= visibleFrom && ref.maxTime() < toMicros) {
+                count = ref.header().count();
+                maxTime = ref.maxTime();
+            } else {
+                List<SensorReading> readings = ReadingBlockCodec.decode(payload(ref), visibleFrom, toMicros);
+                if (readings.isEmpty()) {
+                    continue;
+                }
+                count = readings.size();
+                maxTime = readings.stream()
+                        .mapToLong(reading -> ReadingBlockCodec.toEpochMicros(reading.getMeasurementTime()))
+                        .max().getAsLong();
+            }
+            long[] totals = devices.computeIfAbsent(List.of(ref.header().name(), ref.header().location()),
+                    key -> new long[] {0, Long.MIN_VALUE});
+            totals[0] += count;
+            totals[1] = Math.max(totals[1], maxTime);
+        }
+        List<DeviceSummary> summaries = new ArrayList<>(devices.size());
+        devices.forEach((key, totals) -> summaries.add(new DeviceSummary(key.get(0), key.get(1), totals[0],
+                ReadingBlockCodec.fromEpochMicros(totals[1]))));
+        return summaries;
+    }
+
+    public Optional<SensorReading> findById(long id) {
+        BlockIndex current = index;
+        return current.blocks().stream()
+                .filter(ref -> id >= ref.header().minId() && id <= ref.header().maxId())
+                .flatMap(ref -> ReadingBlockCodec.decode(payload(ref), current.visibleFrom(ref), Long.MAX_VALUE).stream())
+                .filter(reading -> reading.getId() == id)
+                .findFirst();
+    }
+
+    public ArchiveStatsResponse getStats() {
+        BlockIndex current = index;
+        long readings = 0;
+        long bytes = 0;
+        for (BlockRef ref : current.blocks()) {
+            // Blocks partly covered by a tombstone are counted in full
+            readings += ref.header().count();
+            bytes += ref.length();
+        }
+        int segments = (int) current.blocks().stream().mapToInt(BlockRef::segment).distinct().count();
+        return new ArchiveStatsResponse(segments, current.blocks().size(), readings, bytes, current.watermark());
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+        mappings.clear();
+    }
+
+    private static Stream<BlockRef> candidates(BlockIndex current, String name, String location,
+                                               long fromMicros, long toMicros) {
+        List<BlockRef> blocks = name != null ? current.byName().getOrDefault(name, List.of()) : current.blocks();
+        return blocks.stream()
+                .filter(ref -> location == null || location.equals(ref.header().location()))
+                .filter(ref -> ref.maxTime() >= fromMicros && ref.minTime() < toMicros);
+    }
+
+    private static boolean sameSensor(SensorReading a, SensorReading b) {
+        return a.getName().equals(b.getName()) && a.getLocation().equals(b.getLocation());
+    }
+
+    private BlockRef appendBlock(List<SensorReading> readings) throws IOException {
+        byte[] payload = ReadingBlockCodec.encode(readings);
+        long offset = append(BLOCK_RECORD, payload);
+        return new BlockRef(activeSegment, (int) offset, payload.length,
+                ReadingBlockCodec.readHeader(ByteBuffer.wrap(payload)));
+    }
+
+    /**
+     * Appends one record to the active segment, rolling to a new segment when it is full.
+     *
+     * @return the offset of the payload within the segment
+     */
+    private long append(byte type, byte[] payload) throws IOException {
+        long recordBytes = RECORD_HEADER_BYTES + (long) payload.length;
+        if (writer == null || (activeSize > 0 && activeSize + recordBytes > segmentMaxBytes)) {
+            openSegment(activeSegment + 1);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_BYTES)
+                .put(type).putInt(payload.length).putInt((int) crc.getValue()).flip();
+        ByteBuffer body = ByteBuffer.wrap(payload);
+        while (header.hasRemaining() || body.hasRemaining()) {
+            writer.write(new ByteBuffer[]{header, body});
+        }
+        long offset = activeSize + RECORD_HEADER_BYTES;
+        activeSize += recordBytes;
+        return offset;
+    }
+
+    private void appendTombstone(long beforeMicros, String location) throws IOException {
+        byte[] locationBytes = location != null ? location.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        append(TOMBSTONE_RECORD, ByteBuffer.allocate(8 + locationBytes.length)
+                .putLong(beforeMicros).put(locationBytes).array());
+    }
+
+    /**
+     * Deletes the leading segments without visible or unpurged blocks. The watermark and the
+     * tombstones are written again first, since their records may be in those segments.
+     */
+    private void dropHiddenSegments() throws IOException {
+        Set<Integer> needed = new HashSet<>();
+        index.blocks().forEach(ref -> needed.add(ref.segment()));
+        unpurged.forEach(ref -> needed.add(ref.segment()));
+        needed.add(activeSegment);
+        List<Integer> hidden = new ArrayList<>();
+        for (int segment : listSegments()) {
+            if (needed.contains(segment)) {
+                break;
+            }
+            hidden.add(segment);
+        }
+        if (hidden.isEmpty()) {
+            return;
+        }
+        BlockIndex current = index;
+        if (current.watermark() != null) {
+            append(COMMIT_RECORD, ByteBuffer.allocate(8)
+                    .putLong(0, ReadingBlockCodec.toEpochMicros(current.watermark())).array());
+        }
+        if (current.deletedBefore() != Long.MIN_VALUE) {
+            appendTombstone(current.deletedBefore(), null);
+        }
+        for (Map.Entry<String, Long> entry : current.deletedBeforeByLocation().entrySet()) {
+            if (entry.getValue() > current.deletedBefore()) {
+                appendTombstone(entry.getValue(), entry.getKey());
+            }
+        }
+        writer.force(false);
+        for (int segment : hidden) {
+            mappings.remove(segment);
+            Files.delete(segmentPath(segment));
+        }
+        log.info("Deleted {} archive segments whose readings were all deleted", hidden.size());
+    }
+
+    private void openSegment(int segment) throws IOException {
+        if (writer != null) {
+            writer.force(false);
+            writer.close();
+        }
+        writer = FileChannel.open(segmentPath(segment), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        activeSegment = segment;
+        activeSize = writer.size();
+        writer.position(activeSize);
+    }
+
+    private void rollback(int segment, long size) {
+        try {
+            truncateAfter(segment, size);
+            writer = null;
+            if (segment > 0) {
+                openSegment(segment);
+            } else {
+                activeSegment = 0;
+                activeSize = 0;
+            }
+        } catch (IOException ex) {
+            log.error("Could not roll back archive to segment {} offset {}: {}", segment, size, ex.getMessage());
+        }
+    }
+
+    /**
+     * Removes everything after {@code size} bytes of {@code segment}, including later segments.
+     */
+    private void truncateAfter(int segment, long size) throws IOException {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+        for (int later : listSegments()) {
+            if (later > segment) {
+                mappings.remove(later);
+                Files.delete(segmentPath(later));
+            }
+        }
+        if (segment > 0) {
+            mappings.remove(segment);
+            try (FileChannel channel = FileChannel.open(segmentPath(segment), StandardOpenOption.WRITE)) {
+                channel.truncate(size);
+            }
+        }
+    }
+
+    private void recover() throws IOException {
+        Files.createDirectories(directory);
+        List<Integer> segments = listSegments();
+        List<BlockRef> committed = new ArrayList<>();
+        List<BlockRef> pending = new ArrayList<>();
+        List<BlockRef> notPurged = new ArrayList<>();
+        List<Tombstone> tombstones = new ArrayList<>();
+        LocalDateTime watermark = null;
+        int commitSegment = 0;
+        long commitSize = 0;
+        for (int i = 0; i < segments.size(); i++) {
+            int segment = segments.get(i);
+            MappedByteBuffer map = map(segment);
+            mappings.put(segment, map);
+            int position = 0;
+            while (position + RECORD_HEADER_BYTES <= map.capacity()) {
+                byte type = map.get(position);
+                int length = map.getInt(position + 1);
+                int end = position + RECORD_HEADER_BYTES + length;
+                if (length < 0 || end > map.capacity() || crc(map, position + RECORD_HEADER_BYTES, length)
+                        != map.getInt(position + 5) || type < BLOCK_RECORD || type > TOMBSTONE_RECORD) {
+                    break;
+                }
+                int offset = position + RECORD_HEADER_BYTES;
+                if (type == BLOCK_RECORD) {
+                    pending.add(new BlockRef(segment, offset, length,
+                            ReadingBlockCodec.readHeader(map.slice(offset, length))));
+                } else {
+                    if (type == COMMIT_RECORD) {
+                        committed.addAll(pending);
+                        notPurged.addAll(pending);
+                        pending.clear();
+                        watermark = ReadingBlockCodec.fromEpochMicros(map.getLong(offset));
+                    } else if (type == PURGED_RECORD) {
+                        notPurged.clear();
+                    } else {
+                        String location = length > 8
+                                ? StandardCharsets.UTF_8.decode(map.slice(offset + 8, length - 8)).toString() : null;
+                        tombstones.add(new Tombstone(map.getLong(offset), location));
+                    }
+                    commitSegment = segment;
+                    commitSize = end;
+                }
+                position = end;
+            }
+            if (position < map.capacity() && i < segments.size() - 1) {
+                throw new IllegalStateException("Corrupt archive segment " + segmentPath(segment)
+                        + " at offset " + position);
+            }
+        }
+        BlockIndex recovered = BlockIndex.EMPTY;
+        for (Tombstone tombstone : tombstones) {
+            recovered = recovered.withTombstone(tombstone.beforeMicros(), tombstone.location());
+        }
+        index = recovered.with(committed, watermark);
+        unpurged = List.copyOf(notPurged);
+
+        boolean tornTail = !segments.isEmpty() && (segments.get(segments.size() - 1) != commitSegment
+                || Files.size(segmentPath(commitSegment)) != commitSize);
+        if (tornTail) {
+            log.warn("Discarding uncommitted archive data after segment {} offset {}", commitSegment, commitSize);
+            truncateAfter(commitSegment, commitSize);
+        }
+        if (commitSegment > 0) {
+            openSegment(commitSegment);
+        }
+        log.info("Archive opened in {}: {} blocks, watermark {}", directory, index.blocks().size(), watermark);
+    }
+
+    private List<Integer> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> SEGMENT_NAME.matcher(path.getFileName().toString()))
+                    .filter(Matcher::matches)
+                    .map(matcher -> Integer.parseInt(matcher.group(1)))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private Path segmentPath(int segment) {
+        return directory.resolve(String.format("segment-%06d.seg", segment));
+    }
+
+    private ByteBuffer payload(BlockRef ref) {
+        MappedByteBuffer map = mappings.get(ref.segment());
+        if (map == null || map.capacity() < ref.offset() + ref.length()) {
+            // The segment grew since it was mapped
+            map = mappings.compute(ref.segment(), (segment, current) -> {
+                if (current != null && current.capacity() >= ref.offset() + ref.length()) {
+                    return current;
+                }
+                try {
+                    return map(segment);
+                } catch (IOException ex) {
+                    throw new UncheckedIOException("Could not map archive segment " + segment, ex);
+                }
+            });
+        }
+        return map.slice(ref.offset(), ref.length());
+    }
+
+    private MappedByteBuffer map(int segment) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentPath(segment), StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    private static int crc(ByteBuffer buffer, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(offset, length));
+        return (int) crc.getValue();
+    }
+
+    private record BlockRef(int segment, int offset, int length, BlockHeader header) {
+
+        long minTime() {
+            return header.minTime();
+        }
+
+        long maxTime() {
+            return header.maxTime();
+        }
+    }
+
+    private record Tombstone(long beforeMicros, String location) {
+    }
+
+    /**
+     * Immutable snapshot of the committed blocks that are not covered by a tombstone, replaced
+     * as a whole on every commit and deletion. Times are in epoch microseconds.
+     */
+    private record BlockIndex(List<BlockRef> blocks, Map<String, List<BlockRef>> byName, LocalDateTime watermark,
+                              long deletedBefore, Map<String, Long> deletedBeforeByLocation) {
+
+        static final BlockIndex EMPTY = new BlockIndex(List.of(), Map.of(), null, Long.MIN_VALUE, Map.of());
+
+        /**
+         * Readings of the block measured before the returned time are deleted.
+         */
+        long visibleFrom(BlockRef ref) {
+            return Math.max(deletedBefore, deletedBeforeByLocation.getOrDefault(ref.header().location(), Long.MIN_VALUE));
+        }
+
+        BlockIndex with(List<BlockRef> added, LocalDateTime newWatermark) {
+            List<BlockRef> allBlocks = new ArrayList<>(blocks);
+            allBlocks.addAll(added);
+            return new BlockIndex(List.of(), Map.of(), newWatermark != null ? newWatermark : watermark,
+                    deletedBefore, deletedBeforeByLocation).withBlocks(allBlocks);
+        }
+
+        BlockIndex withTombstone(long beforeMicros, String location) {
+            long newDeletedBefore = deletedBefore;
+            Map<String, Long> byLocation = new HashMap<>(deletedBeforeByLocation);
+            if (location == null) {
+                newDeletedBefore = Math.max(deletedBefore, beforeMicros);
+            } else {
+                byLocation.merge(location, beforeMicros, Math::max);
+            }
+            return new BlockIndex(List.of(), Map.of(), watermark, newDeletedBefore, Map.copyOf(byLocation))
+                    .withBlocks(blocks);
+        }
+
+        private BlockIndex withBlocks(List<BlockRef> candidates) {
+            List<BlockRef> visible = new ArrayList<>(candidates.size());
+            Map<String, List<BlockRef>> names = new HashMap<>();
+            for (BlockRef ref : candidates) {
+                if (ref.maxTime() < visibleFrom(ref)) {
+                    continue;
+                }
+                visible.add(ref);
+                names.computeIfAbsent(ref.header().name(), name -> new ArrayList<>()).add(ref);
+            }
+            names.replaceAll((name, refs) -> List.copyOf(refs));
+            return new BlockIndex(List.copyOf(visible), Map.copyOf(names), watermark, deletedBefore,
+                    deletedBeforeByLocation);
+        }
+    }
+
+    /**
+     * K-way merge of blocks sorted by their minimum time. A block is opened when its minimum
+     * time is not after the head of the merge, so only blocks overlapping it are held decoded.
+     */
+    private static final class BlockMerge implements Iterator<SensorReading> {
+
+        private final List<BlockRef> blocks;
+        private final Function<BlockRef, List<SensorReading>> decoder;
+        private final PriorityQueue<BlockCursor> heads = new PriorityQueue<>(
+                Comparator.comparingLong(BlockCursor::time).thenComparingLong(cursor -> cursor.current().getId()));
+        private int nextBlock;
+
+        private BlockMerge(List<BlockRef> blocks, Function<BlockRef, List<SensorReading>> decoder) {
+            this.blocks = blocks;
+            this.decoder = decoder;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (nextBlock < blocks.size()
+                    && (heads.isEmpty() || blocks.get(nextBlock).minTime() <= heads.peek().time())) {
+                List<SensorReading> readings = decoder.apply(blocks.get(nextBlock++));
+                if (!readings.isEmpty()) {
+                    heads.add(new BlockCursor(readings));
+                }
+            }
+            return !heads.isEmpty();
+        }
+
+        @Override
+        public SensorReading next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            BlockCursor cursor = heads.poll();
+            SensorReading reading = cursor.current();
+            if (cursor.advance()) {
+                heads.add(cursor);
+            }
+            return reading;
+        }
+    }
+
+    private static final class BlockCursor {
+
+        private final List<SensorReading> readings;
+        private int position;
+        private long time;
+
+        private BlockCursor(List<SensorReading> readings) {
+            this.readings = readings;
+            this.time = ReadingBlockCodec.toEpochMicros(readings.get(0).getMeasurementTime());
+        }
+
+        private SensorReading current() {
+            return readings.get(position);
+        }
+
+        private long time() {
+            return time;
+        }
+
+        private boolean advance() {
+            if (++position == readings.size()) {
+                return false;
+            }
+            time = ReadingBlockCodec.toEpochMicros(current().getMeasurementTime());
+            return true;
+        }
+    }
+}
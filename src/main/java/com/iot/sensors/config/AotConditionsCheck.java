@@ -0,0 +1,72 @@
+package com.iot.sensors.config;
+
+import com.iot.sensors.archive.ArchiveTieringJob;
+import com.iot.sensors.archive.SegmentArchive;
+import com.iot.sensors.generator.DatasetGenerator;
+import com.iot.sensors.ingest.udp.UdpIngestListener;
+import com.iot.sensors.service.SensorRetentionJob;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fails startup when an {@code @ConditionalOnProperty} toggle disagrees with the beans that
+ * exist. With the AOT-processed build ({@code -Pfast-startup}) the bean set is fixed when the
+ * jar is built, so a toggle changed at runtime would otherwise be ignored silently. Without
+ * AOT the conditions are evaluated at startup and the check always passes.
+ */
+@Component
+@Lazy(false)
+public class AotConditionsCheck implements SmartInitializingSingleton {
+
+    /**
+     * Property, its default when unset, and the beans it enables.
+     */
+    private record Toggle(String property, boolean defaultValue, List<Class<?>> beans) {
+    }
+
+    private static final List<Toggle> TOGGLES = List.of(
+            new Toggle("iot.archive.enabled", false, List.of(SegmentArchive.class, ArchiveTieringJob.class)),
+            new Toggle("iot.retention.enabled", false, List.of(SensorRetentionJob.class)),
+            new Toggle("iot.udp.enabled", false, List.of(UdpIngestListener.class)),
+            new Toggle("iot.sql.accounting.enabled", false, List.of(SqlAccountingConfig.class)),
+            new Toggle("iot.generator.enabled", false, List.of(DatasetGenerator.class)),
+            new Toggle("springdoc.api-docs.enabled", true, List.of(OpenApiConfig.class)));
+
+    private final ListableBeanFactory beanFactory;
+    private final Environment environment;
+
+    public AotConditionsCheck(ListableBeanFactory beanFactory, Environment environment) {
+        this.beanFactory = beanFactory;
+        this.environment = environment;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        Map<String, Boolean> mismatches = new LinkedHashMap<>();
+        for (Toggle toggle : TOGGLES) {
+            boolean enabled = "true".equalsIgnoreCase(
+                    environment.getProperty(toggle.property(), String.valueOf(toggle.defaultValue())));
+            boolean present = toggle.beans().stream()
+                    .anyMatch(type -> beanFactory.getBeanNamesForType(type, true, false).length > 0);
+            if (enabled != present) {
+                mismatches.put(toggle.property(), present);
+            }
+        }
+        if (!mismatches.isEmpty()) {
+            List<String> details = new ArrayList<>();
+            mismatches.forEach((property, builtWith) ->
+                    details.add(property + " is " + !builtWith + " but the build has it " + builtWith));
+            throw new IllegalStateException("Properties disagree with the AOT-processed build: "
+                    + String.join("; ", details) + ". Set them in the profiles used by the AOT build "
+                    + "(prod, fast-startup) and rebuild, or start without -Dspring.aot.enabled=true");
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.iot.sensors.config;
+
+import com.iot.sensors.jdbc.SqlAccountingInterceptor;
+import com.iot.sensors.jdbc.SqlAccountingPostProcessor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+@ConditionalOnProperty(name = "iot.sql.accounting.enabled", havingValue = "true")
+public class SqlAccountingConfig implements WebMvcConfigurer {
+
+    private final int warnStatements;
+
+    public SqlAccountingConfig(@Value("${iot.sql.warn-statements:20}") int warnStatements) {
+        this.warnStatements = warnStatements;
+    }
+
+    @Bean
+    public static SqlAccountingPostProcessor sqlAccountingPostProcessor(Environment environment) {
+        return new SqlAccountingPostProcessor(environment.getProperty("iot.sql.slow-query-ms", Long.class, 200L));
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new SqlAccountingInterceptor(warnStatements));
+    }
+}
@@ -1,18 +1,37 @@
 package com.iot.sensors.controller;
 
+import com.iot.sensors.dto.DeviceSearchResponse;
+import com.iot.sensors.dto.PurgeResponse;
+import com.iot.sensors.dto.RecalibrationRequest;
+import com.iot.sensors.dto.RecalibrationResponse;
+import com.iot.sensors.dto.SensorPatchRequest;
 import com.iot.sensors.dto.SensorRequest;
 import com.iot.sensors.dto.SensorResponse;
+import com.iot.sensors.dto.SeriesResponse;
+import com.iot.sensors.exception.InvalidRequestException;
+import com.iot.sensors.export.ArrowExportService;
+import com.iot.sensors.ingest.IngestGuard;
+import com.iot.sensors.model.Metric;
+import com.iot.sensors.service.SensorPurgeService;
+import com.iot.sensors.service.SensorRecalibrationService;
 import com.iot.sensors.service.SensorService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.net.URI;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -21,20 +40,37 @@ import java.util.List;
 public class SensorController {
 
     private final SensorService sensorService;
+    private final SensorPurgeService sensorPurgeService;
+    private final SensorRecalibrationService sensorRecalibrationService;
+    private final ArrowExportService arrowExportService;
+    private final IngestGuard ingestGuard;
 
-    public SensorController(SensorService sensorService) {
+    public SensorController(SensorService sensorService, SensorPurgeService sensorPurgeService,
+                            SensorRecalibrationService sensorRecalibrationService,
+                            ArrowExportService arrowExportService, IngestGuard ingestGuard) {
         this.sensorService = sensorService;
+        this.sensorPurgeService = sensorPurgeService;
+        this.sensorRecalibrationService = sensorRecalibrationService;
+        this.arrowExportService = arrowExportService;
+        this.ingestGuard = ingestGuard;
     }
 
     @Operation(summary = "Create a new sensor reading", description = "Creates a new sensor reading with temperature, humidity, and pressure data")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "201", description = "Sensor reading created successfully"),
-            @ApiResponse(responseCode = "400", description = "Invalid input data")
+            @ApiResponse(responseCode = "400", description = "Invalid input data"),
+            @ApiResponse(responseCode = "429", description = "Sensor exceeded its rate limit"),
+            @ApiResponse(responseCode = "503", description = "Service overloaded")
     })
     @PostMapping
     public ResponseEntity<SensorResponse> createSensor(@Valid @RequestBody SensorRequest request) {
-        SensorResponse response = sensorService.createSensor(request);
-        return new ResponseEntity<>(response, HttpStatus.CREATED);
+        long admittedAt = ingestGuard.acquire(request.getName());
+        try {
+            SensorResponse response = sensorService.createSensor(request);
+            return new ResponseEntity<>(response, HttpStatus.CREATED);
+        } finally {
+            ingestGuard.release(admittedAt);
+        }
     }
 
     @Operation(summary = "Get all sensor readings", description = "Retrieves all sensor readings from the database")
@@ -75,10 +111,80 @@ public class SensorController {
         return ResponseEntity.ok(sensors);
     }
 
-    @Operation(summary = "Update sensor reading", description = "Updates an existing sensor reading")
+    @Operation(summary = "Get downsampled series for a sensor",
+            description = "Returns at most 'points' readings per metric between 'from' and 'to', selected with "
+                    + "Largest-Triangle-Three-Buckets downsampling so chart shapes are preserved")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successful operation"),
+            @ApiResponse(responseCode = "400", description = "Invalid range or number of points")
+    })
+    @GetMapping("/name/{name}/series")
+    public ResponseEntity<SeriesResponse> getSensorSeries(
+            @Parameter(description = "Sensor name") @PathVariable String name,
+            @Parameter(description = "Range start (ISO date-time), defaults to 24 hours before 'to'")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(description = "Range end (ISO date-time, exclusive), defaults to now")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @Parameter(description = "Maximum number of points per metric (3-10000)")
+            @RequestParam(defaultValue = "1000") int points) {
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime start = from != null ? from : end.minusHours(24);
+        SeriesResponse response = sensorService.getSensorSeries(name, start, end, points);
+        return ResponseEntity.ok(response);
+    }
+
+    @Operation(summary = "Export sensor readings as Apache Arrow",
+            description = "Streams the readings measured between 'from' and 'to', optionally of one sensor, as an "
+                    + "Arrow IPC stream in fixed-size record batches. 'name' and 'location' are dictionary-encoded "
+                    + "and missing metrics are null")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Arrow IPC stream",
+                    content = @Content(mediaType = ArrowExportService.MEDIA_TYPE)),
+            @ApiResponse(responseCode = "400", description = "Invalid range"),
+            @ApiResponse(responseCode = "503", description = "Arrow cannot allocate memory in this JVM")
+    })
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportSensors(
+            @Parameter(description = "Sensor name") @RequestParam(required = false) String name,
+            @Parameter(description = "Range start (ISO date-time), defaults to 24 hours before 'to'")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(description = "Range end (ISO date-time, exclusive), defaults to now")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime start = from != null ? from : end.minusHours(24);
+        if (!start.isBefore(end)) {
+            throw new InvalidRequestException("'from' must be before 'to'");
+        }
+        arrowExportService.checkAvailable();
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(ArrowExportService.MEDIA_TYPE))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"sensors.arrows\"")
+                .body(out -> arrowExportService.export(name, start, end, out));
+    }
+
+    @Operation(summary = "Search sensors", description = "Searches distinct sensors (name and location) whose name "
+            + "or location starts with or contains the given text. Results are paginated")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successful operation"),
+            @ApiResponse(responseCode = "400", description = "Invalid search parameters")
+    })
+    @GetMapping("/search")
+    public ResponseEntity<DeviceSearchResponse> searchSensors(
+            @Parameter(description = "Search text") @RequestParam String q,
+            @Parameter(description = "Field to search: name or location") @RequestParam(defaultValue = "name") String field,
+            @Parameter(description = "Match mode: prefix or contains") @RequestParam(defaultValue = "prefix") String mode,
+            @Parameter(description = "Page number (0-based)") @RequestParam(defaultValue = "0") int page,
+            @Parameter(description = "Page size (max 100)") @RequestParam(defaultValue = "20") int size) {
+        DeviceSearchResponse response = sensorService.searchDevices(q, field, mode, page, size);
+        return ResponseEntity.ok(response);
+    }
+
+    @Operation(summary = "Update sensor reading",
+            description = "Updates an existing sensor reading; archived readings are read-only")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Sensor updated successfully"),
             @ApiResponse(responseCode = "404", description = "Sensor not found"),
+            @ApiResponse(responseCode = "409", description = "The reading is archived and read-only"),
             @ApiResponse(responseCode = "400", description = "Invalid input data")
     })
     @PutMapping("/{id}")
@@ -89,10 +195,52 @@ public class SensorController {
         return ResponseEntity.ok(response);
     }
 
-    @Operation(summary = "Delete sensor reading", description = "Deletes a sensor reading by its ID")
+    @Operation(summary = "Partially update sensor reading",
+            description = "Updates only the supplied fields of a reading with a single statement. "
+                    + "Omitted or null fields keep their value; archived readings cannot be patched")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Sensor updated successfully"),
+            @ApiResponse(responseCode = "404", description = "Sensor not found"),
+            @ApiResponse(responseCode = "409", description = "The reading is archived and read-only"),
+            @ApiResponse(responseCode = "400", description = "Invalid input data or no field supplied")
+    })
+    @PatchMapping("/{id}")
+    public ResponseEntity<Void> patchSensor(
+            @Parameter(description = "Sensor ID") @PathVariable Long id,
+            @Valid @RequestBody SensorPatchRequest request) {
+        sensorService.patchSensor(id, request);
+        return ResponseEntity.noContent().build();
+    }
+
+    @Operation(summary = "Recalibrate sensor readings",
+            description = "Adds a constant offset to one metric of every reading of a sensor measured in "
+                    + "[from, to). Rows are updated in bounded chunks, each in its own short transaction. If a "
+                    + "chunk fails, the committed chunks stay applied and the response gives the key to resume "
+                    + "after; send it back as resumeAfterTime and resumeAfterId to finish the recalibration")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Readings recalibrated"),
+            @ApiResponse(responseCode = "400", description = "Invalid metric, offset, range or resume key, or "
+                    + "range reaching into archived readings"),
+            @ApiResponse(responseCode = "500", description = "Recalibration failed part-way; the body carries "
+                    + "the rows updated and the resume key")
+    })
+    @PostMapping("/name/{name}/recalibrate")
+    public ResponseEntity<RecalibrationResponse> recalibrateSensor(
+            @Parameter(description = "Sensor name") @PathVariable String name,
+            @Valid @RequestBody RecalibrationRequest request) {
+        RecalibrationResponse response = sensorRecalibrationService.recalibrate(name,
+                Metric.fromValue(request.getMetric()), request.getOffset(), request.getFrom(), request.getTo(),
+                request.getResumeAfterTime(), request.getResumeAfterId());
+        return ResponseEntity.ok(response);
+    }
+
+    @Operation(summary = "Delete sensor reading",
+            description = "Deletes a sensor reading by its ID; archived readings can only be removed with a bulk "
+                    + "delete")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "204", description = "Sensor deleted successfully"),
-            @ApiResponse(responseCode = "404", description = "Sensor not found")
+            @ApiResponse(responseCode = "404", description = "Sensor not found"),
+            @ApiResponse(responseCode = "409", description = "The reading is archived and read-only")
     })
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteSensor(
@@ -100,4 +248,35 @@ public class SensorController {
         sensorService.deleteSensor(id);
         return ResponseEntity.noContent().build();
     }
+
+    @Operation(summary = "Delete sensor readings in bulk",
+            description = "Starts deleting every reading measured before the given time, optionally only for one "
+                    + "location, and returns immediately. Rows are removed in the background in bounded chunks, "
+                    + "each in its own short transaction; archived readings of the range are deleted as well. "
+                    + "Follow the progress with GET /api/sensors/purge")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Purge started"),
+            @ApiResponse(responseCode = "400", description = "Missing or invalid 'before'"),
+            @ApiResponse(responseCode = "409", description = "Another purge is already running")
+    })
+    @DeleteMapping
+    public ResponseEntity<PurgeResponse> purgeSensors(
+            @Parameter(description = "Delete readings measured before this time (ISO date-time)")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime before,
+            @Parameter(description = "Location name") @RequestParam(required = false) String location) {
+        PurgeResponse response = sensorPurgeService.startPurge(before, location, "api");
+        return ResponseEntity.accepted().location(URI.create("/api/sensors/purge")).body(response);
+    }
+
+    @Operation(summary = "Get purge progress",
+            description = "Returns the progress of the running or last purge; 'error' is set when it failed")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successful operation"),
+            @ApiResponse(responseCode = "204", description = "No purge has run yet")
+    })
+    @GetMapping("/purge")
+    public ResponseEntity<PurgeResponse> getPurgeStatus() {
+        PurgeResponse status = sensorPurgeService.getStatus();
+        return status != null ? ResponseEntity.ok(status) : ResponseEntity.noContent().build();
+    }
 }
@@ -0,0 +1,108 @@
+package com.iot.sensors.controller;
+
+import com.iot.sensors.archive.SegmentArchive;
+import com.iot.sensors.dto.ArchiveStatsResponse;
+import com.iot.sensors.dto.IngestStatsResponse;
+import com.iot.sensors.dto.QuantileResponse;
+import com.iot.sensors.dto.UdpIngestStatsResponse;
+import com.iot.sensors.exception.InvalidRequestException;
+import com.iot.sensors.ingest.IngestGuard;
+import com.iot.sensors.ingest.udp.UdpIngestListener;
+import com.iot.sensors.model.Metric;
+import com.iot.sensors.service.QuantileSketchService;
+import com.iot.sensors.service.QuantileSketchService.Dimension;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/sensors/stats")
+@Tag(name = "Sensor statistics", description = "Approximate statistics over sensor readings")
+public class SensorStatsController {
+
+    private final QuantileSketchService quantileSketchService;
+    private final IngestGuard ingestGuard;
+    private final ObjectProvider<UdpIngestListener> udpIngestListener;
+    private final ObjectProvider<SegmentArchive> segmentArchive;
+
+    public SensorStatsController(QuantileSketchService quantileSketchService, IngestGuard ingestGuard,
+                                 ObjectProvider<UdpIngestListener> udpIngestListener,
+                                 ObjectProvider<SegmentArchive> segmentArchive) {
+        this.quantileSketchService = quantileSketchService;
+        this.ingestGuard = ingestGuard;
+        this.udpIngestListener = udpIngestListener;
+        this.segmentArchive = segmentArchive;
+    }
+
+    @Operation(summary = "Get approximate quantiles",
+            description = "Merges the per-bucket t-digest sketches of a sensor or a location over the requested "
+                    + "range and returns approximate quantiles. Exactly one of 'name' or 'location' is required.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successful operation"),
+            @ApiResponse(responseCode = "400", description = "Invalid parameters")
+    })
+    @GetMapping("/quantiles")
+    public ResponseEntity<QuantileResponse> getQuantiles(
+            @Parameter(description = "Metric: temperature, humidity or pressure") @RequestParam String metric,
+            @Parameter(description = "Sensor name") @RequestParam(required = false) String name,
+            @Parameter(description = "Location name") @RequestParam(required = false) String location,
+            @Parameter(description = "Range start (ISO date-time), defaults to 24 hours before 'to'")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(description = "Range end (ISO date-time, exclusive), defaults to now")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @Parameter(description = "Quantiles between 0 and 1")
+            @RequestParam(name = "q", defaultValue = "0.5,0.95,0.99") List<Double> quantiles) {
+        if ((name == null) == (location == null)) {
+            throw new InvalidRequestException("Exactly one of 'name' or 'location' is required");
+        }
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime start = from != null ? from : end.minusHours(24);
+        Dimension dimension = name != null ? Dimension.SENSOR : Dimension.LOCATION;
+        QuantileResponse response = quantileSketchService.quantiles(dimension,
+                name != null ? name : location, Metric.fromValue(metric), start, end, quantiles);
+        return ResponseEntity.ok(response);
+    }
+
+    @Operation(summary = "Get ingest admission counters",
+            description = "Returns the number of admitted, rate-limited and shed ingest requests since startup, "
+                    + "with the current adaptive concurrency limit and ingest latency")
+    @ApiResponse(responseCode = "200", description = "Successful operation")
+    @GetMapping("/ingest")
+    public ResponseEntity<IngestStatsResponse> getIngestStats() {
+        return ResponseEntity.ok(ingestGuard.getStats());
+    }
+
+    @Operation(summary = "Get UDP ingest counters",
+            description = "Returns datagram counters (received, malformed, invalid, rejected, dropped, persisted)")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successful operation"),
+            @ApiResponse(responseCode = "404", description = "UDP ingest is disabled")
+    })
+    @GetMapping("/udp")
+    public ResponseEntity<UdpIngestStatsResponse> getUdpIngestStats() {
+        UdpIngestListener listener = udpIngestListener.getIfAvailable();
+        return listener != null ? ResponseEntity.ok(listener.getStats()) : ResponseEntity.notFound().build();
+    }
+
+    @Operation(summary = "Get cold-tier archive statistics",
+            description = "Returns the number of archived segments, blocks and readings, their compressed size "
+                    + "and the watermark before which every reading is archived")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successful operation"),
+            @ApiResponse(responseCode = "404", description = "The archive is disabled")
+    })
+    @GetMapping("/archive")
+    public ResponseEntity<ArchiveStatsResponse> getArchiveStats() {
+        SegmentArchive archive = segmentArchive.getIfAvailable();
+        return archive != null ? ResponseEntity.ok(archive.getStats()) : ResponseEntity.notFound().build();
+    }
+}
@@ -0,0 +1,63 @@
+package com.iot.sensors.dto;
+
+import java.time.LocalDateTime;
+
+public class ArchiveStatsResponse {
+
+    private int segments;
+    private int blocks;
+    private long readings;
+    private long bytes;
+    private LocalDateTime watermark;
+
+    public ArchiveStatsResponse() {
+    }
+
+    public ArchiveStatsResponse(int segments, int blocks, long readings, long bytes, LocalDateTime watermark) {
+        this.segments = segments;
+        this.blocks = blocks;
+        this.readings = readings;
+        this.bytes = bytes;
+        this.watermark = watermark;
+    }
+
+    public int getSegments() {
+        return segments;
+    }
+
+    public void setSegments(int segments) {
+        this.segments = segments;
+    }
+
+    public int getBlocks() {
+        return blocks;
+    }
+
+    public void setBlocks(int blocks) {
+        this.blocks = blocks;
+    }
+
+    public long getReadings() {
+        return readings;
+    }
+
+    public void setReadings(long readings) {
+        this.readings = readings;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    public void setBytes(long bytes) {
+        this.bytes = bytes;
+    }
+
+    public LocalDateTime getWatermark() {
+        return watermark;
+    }
+
+    public void setWatermark(LocalDateTime watermark) {
+        this.watermark = watermark;
+    }
+}
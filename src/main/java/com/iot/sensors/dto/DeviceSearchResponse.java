@@ -0,0 +1,53 @@
+package com.iot.sensors.dto;
+
+import java.util.List;
+
+public class DeviceSearchResponse {
+
+    private List<DeviceSummary> content;
+    private int page;
+    private int size;
+    private boolean hasNext;
+
+    public DeviceSearchResponse() {
+    }
+
+    public DeviceSearchResponse(List<DeviceSummary> content, int page, int size, boolean hasNext) {
+        this.content = content;
+        this.page = page;
+        this.size = size;
+        this.hasNext = hasNext;
+    }
+
+    public List<DeviceSummary> getContent() {
+        return content;
+    }
+
+    public void setContent(List<DeviceSummary> content) {
+        this.content = content;
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    public void setPage(int page) {
+        this.page = page;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+    }
+
+    public boolean isHasNext() {
+        return hasNext;
+    }
+
+    public void setHasNext(boolean hasNext) {
+        this.hasNext = hasNext;
+    }
+}
@@ -0,0 +1,53 @@
+package com.iot.sensors.dto;
+
+import java.time.LocalDateTime;
+
+public class DeviceSummary {
+
+    private String name;
+    private String location;
+    private long readings;
+    private LocalDateTime lastMeasurementTime;
+
+    public DeviceSummary() {
+    }
+
+    public DeviceSummary(String name, String location, long readings, LocalDateTime lastMeasurementTime) {
+        this.name = name;
+        this.location = location;
+        this.readings = readings;
+        this.lastMeasurementTime = lastMeasurementTime;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getLocation() {
+        return location;
+    }
+
+    public void setLocation(String location) {
+        this.location = location;
+    }
+
+    public long getReadings() {
+        return readings;
+    }
+
+    public void setReadings(long readings) {
+        this.readings = readings;
+    }
+
+    public LocalDateTime getLastMeasurementTime() {
+        return lastMeasurementTime;
+    }
+
+    public void setLastMeasurementTime(LocalDateTime lastMeasurementTime) {
+        this.lastMeasurementTime = lastMeasurementTime;
+    }
+}
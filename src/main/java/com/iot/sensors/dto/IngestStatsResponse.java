@@ -0,0 +1,94 @@
+package com.iot.sensors.dto;
+
+public class IngestStatsResponse {
+
+    private long admitted;
+    private long rateLimited;
+    private long shed;
+    private int inFlight;
+    private int concurrencyLimit;
+    private double latencyMillis;
+    private int poolWaiters;
+    private int trackedDevices;
+
+    public IngestStatsResponse() {
+    }
+
+    public IngestStatsResponse(long admitted, long rateLimited, long shed, int inFlight, int concurrencyLimit,
+                               double latencyMillis, int poolWaiters, int trackedDevices) {
+        this.admitted = admitted;
+        this.rateLimited = rateLimited;
+        this.shed = shed;
+        this.inFlight = inFlight;
+        this.concurrencyLimit = concurrencyLimit;
+        this.latencyMillis = latencyMillis;
+        this.poolWaiters = poolWaiters;
+        this.trackedDevices = trackedDevices;
+    }
+
+    public long getAdmitted() {
+        return admitted;
+    }
+
+    public void setAdmitted(long admitted) {
+        this.admitted = admitted;
+    }
+
+    public long getRateLimited() {
+        return rateLimited;
+    }
+
+    public void setRateLimited(long rateLimited) {
+        this.rateLimited = rateLimited;
+    }
+
+    public long getShed() {
+        return shed;
+    }
+
+    public void setShed(long shed) {
+        this.shed = shed;
+    }
+
+    public int getInFlight() {
+        return inFlight;
+    }
+
+    public void setInFlight(int inFlight) {
+        this.inFlight = inFlight;
+        this.concurrencyLimit = concurrencyLimit;
+        this.latencyMillis = latencyMillis;
+    }
+
+    public int getConcurrencyLimit() {
+        return concurrencyLimit;
+    }
+
+    public void setConcurrencyLimit(int concurrencyLimit) {
+        this.concurrencyLimit = concurrencyLimit;
+    }
+
+    public double getLatencyMillis() {
+        return latencyMillis;
+    }
+
+    public void setLatencyMillis(double latencyMillis) {
+        this.latencyMillis = latencyMillis;
+    }
+
+    public int getPoolWaiters() {
+        return poolWaiters;
+    }
+
+    public void setPoolWaiters(int poolWaiters) {
+        this.poolWaiters = poolWaiters;
+    }
+
+    public int getTrackedDevices() {
+        return trackedDevices;
+    }
+
+    public void setTrackedDevices(int trackedDevices) {
+        this.trackedDevices = trackedDevices;
+    }
+}
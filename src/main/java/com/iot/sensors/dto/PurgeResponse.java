@@ -0,0 +1,115 @@
+package com.iot.sensors.dto;
+
+import java.time.LocalDateTime;
+
+public class PurgeResponse {
+
+    private String trigger;
+    private LocalDateTime before;
+    private String location;
+    private boolean running;
+    private long deleted;
+    private long chunks;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private long durationMs;
+    private String error;
+
+    public PurgeResponse() {
+    }
+
+    public PurgeResponse(String trigger, LocalDateTime before, String location, boolean running, long deleted,
+                         long chunks, LocalDateTime startedAt, LocalDateTime finishedAt, long durationMs,
+                         String error) {
+        this.trigger = trigger;
+        this.before = before;
+        this.location = location;
+        this.running = running;
+        this.deleted = deleted;
+        this.chunks = chunks;
+        this.startedAt = startedAt;
+        this.finishedAt = finishedAt;
+        this.durationMs = durationMs;
+        this.error = error;
+    }
+
+    public String getTrigger() {
+        return trigger;
+    }
+
+    public void setTrigger(String trigger) {
+        this.trigger = trigger;
+    }
+
+    public LocalDateTime getBefore() {
+        return before;
+    }
+
+    public void setBefore(LocalDateTime before) {
+        this.before = before;
+    }
+
+    public String getLocation() {
+        return location;
+    }
+
+    public void setLocation(String location) {
+        this.location = location;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public void setRunning(boolean running) {
+        this.running = running;
+    }
+
+    public long getDeleted() {
+        return deleted;
+    }
+
+    public void setDeleted(long deleted) {
+        this.deleted = deleted;
+    }
+
+    public long getChunks() {
+        return chunks;
+    }
+
+    public void setChunks(long chunks) {
+        this.chunks = chunks;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(LocalDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    public long getDurationMs() {
+        return durationMs;
+    }
+
+    public void setDurationMs(long durationMs) {
+        this.durationMs = durationMs;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
@@ -0,0 +1,105 @@
+package com.iot.sensors.dto;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+public class QuantileResponse {
+
+    private String dimension;
+    private String key;
+    private String metric;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private long count;
+    private Double min;
+    private Double max;
+    private Map<String, Double> quantiles;
+
+    public QuantileResponse() {
+    }
+
+    public QuantileResponse(String dimension, String key, String metric, LocalDateTime from, LocalDateTime to,
+                            long count, Double min, Double max, Map<String, Double> quantiles) {
+        this.dimension = dimension;
+        this.key = key;
+        this.metric = metric;
+        this.from = from;
+        this.to = to;
+        this.count = count;
+        this.min = min;
+        this.max = max;
+        this.quantiles = quantiles;
+    }
+
+    public String getDimension() {
+        return dimension;
+    }
+
+    public void setDimension(String dimension) {
+        this.dimension = dimension;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    public String getMetric() {
+        return metric;
+    }
+
+    public void setMetric(String metric) {
+        this.metric = metric;
+    }
+
+    public LocalDateTime getFrom() {
+        return from;
+    }
+
+    public void setFrom(LocalDateTime from) {
+        this.from = from;
+    }
+
+    public LocalDateTime getTo() {
+        return to;
+    }
+
+    public void setTo(LocalDateTime to) {
+        this.to = to;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    public Double getMin() {
+        return min;
+    }
+
+    public void setMin(Double min) {
+        this.min = min;
+    }
+
+    public Double getMax() {
+        return max;
+    }
+
+    public void setMax(Double max) {
+        this.max = max;
+    }
+
+    public Map<String, Double> getQuantiles() {
+        return quantiles;
+    }
+
+    public void setQuantiles(Map<String, Double> quantiles) {
+        this.quantiles = quantiles;
+    }
+}
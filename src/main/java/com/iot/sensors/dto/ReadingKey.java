@@ -0,0 +1,25 @@
+package com.iot.sensors.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Position of a reading in measurement-time order, used as a keyset for chunked updates.
+ */
+public class ReadingKey {
+
+    private final Long id;
+    private final LocalDateTime measurementTime;
+
+    public ReadingKey(Long id, LocalDateTime measurementTime) {
+        this.id = id;
+        this.measurementTime = measurementTime;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public LocalDateTime getMeasurementTime() {
+        return measurementTime;
+    }
+}
@@ -0,0 +1,84 @@
+package com.iot.sensors.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+
+import java.time.LocalDateTime;
+
+public class RecalibrationRequest {
+
+    @NotBlank(message = "Metric is required")
+    private String metric;
+
+    @NotNull(message = "Offset is required")
+    private Double offset;
+
+    @NotNull(message = "'from' is required")
+    private LocalDateTime from;
+
+    @NotNull(message = "'to' is required")
+    private LocalDateTime to;
+
+    // Key returned by a failed recalibration; both set to resume after it
+    private LocalDateTime resumeAfterTime;
+
+    private Long resumeAfterId;
+
+    public RecalibrationRequest() {
+    }
+
+    public RecalibrationRequest(String metric, Double offset, LocalDateTime from, LocalDateTime to) {
+        this.metric = metric;
+        this.offset = offset;
+        this.from = from;
+        this.to = to;
+    }
+
+    public String getMetric() {
+        return metric;
+    }
+
+    public void setMetric(String metric) {
+        this.metric = metric;
+    }
+
+    public Double getOffset() {
+        return offset;
+    }
+
+    public void setOffset(Double offset) {
+        this.offset = offset;
+    }
+
+    public LocalDateTime getFrom() {
+        return from;
+    }
+
+    public void setFrom(LocalDateTime from) {
+        this.from = from;
+    }
+
+    public LocalDateTime getTo() {
+        return to;
+    }
+
+    public void setTo(LocalDateTime to) {
+        this.to = to;
+    }
+
+    public LocalDateTime getResumeAfterTime() {
+        return resumeAfterTime;
+    }
+
+    public void setResumeAfterTime(LocalDateTime resumeAfterTime) {
+        this.resumeAfterTime = resumeAfterTime;
+    }
+
+    public Long getResumeAfterId() {
+        return resumeAfterId;
+    }
+
+    public void setResumeAfterId(Long resumeAfterId) {
+        this.resumeAfterId = resumeAfterId;
+    }
+}
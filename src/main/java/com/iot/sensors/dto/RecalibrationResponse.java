@@ -0,0 +1,130 @@
+package com.iot.sensors.dto;
+
+import java.time.LocalDateTime;
+
+public class RecalibrationResponse {
+
+    private String name;
+    private String metric;
+    private double offset;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private long updated;
+    private long chunks;
+    private long durationMs;
+    private boolean completed;
+    private LocalDateTime resumeAfterTime;
+    private Long resumeAfterId;
+    private String error;
+
+    public RecalibrationResponse() {
+    }
+
+    public RecalibrationResponse(String name, String metric, double offset, LocalDateTime from, LocalDateTime to,
+                                 long updated, long chunks, long durationMs) {
+        this.name = name;
+        this.metric = metric;
+        this.offset = offset;
+        this.from = from;
+        this.to = to;
+        this.updated = updated;
+        this.chunks = chunks;
+        this.durationMs = durationMs;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getMetric() {
+        return metric;
+    }
+
+    public void setMetric(String metric) {
+        this.metric = metric;
+    }
+
+    public double getOffset() {
+        return offset;
+    }
+
+    public void setOffset(double offset) {
+        this.offset = offset;
+    }
+
+    public LocalDateTime getFrom() {
+        return from;
+    }
+
+    public void setFrom(LocalDateTime from) {
+        this.from = from;
+    }
+
+    public LocalDateTime getTo() {
+        return to;
+    }
+
+    public void setTo(LocalDateTime to) {
+        this.to = to;
+    }
+
+    public long getUpdated() {
+        return updated;
+    }
+
+    public void setUpdated(long updated) {
+        this.updated = updated;
+    }
+
+    public long getChunks() {
+        return chunks;
+    }
+
+    public void setChunks(long chunks) {
+        this.chunks = chunks;
+    }
+
+    public long getDurationMs() {
+        return durationMs;
+    }
+
+    public void setDurationMs(long durationMs) {
+        this.durationMs = durationMs;
+    }
+
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    public void setCompleted(boolean completed) {
+        this.completed = completed;
+    }
+
+    public LocalDateTime getResumeAfterTime() {
+        return resumeAfterTime;
+    }
+
+    public void setResumeAfterTime(LocalDateTime resumeAfterTime) {
+        this.resumeAfterTime = resumeAfterTime;
+    }
+
+    public Long getResumeAfterId() {
+        return resumeAfterId;
+    }
+
+    public void setResumeAfterId(Long resumeAfterId) {
+        this.resumeAfterId = resumeAfterId;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
@@ -0,0 +1,26 @@
+package com.iot.sensors.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * A validated reading together with the time it reached the service, used as its measurement
+ * time when the reading is persisted later in a batch.
+ */
+public class ReceivedReading {
+
+    private final SensorRequest request;
+    private final LocalDateTime receivedAt;
+
+    public ReceivedReading(SensorRequest request, LocalDateTime receivedAt) {
+        this.request = request;
+        this.receivedAt = receivedAt;
+    }
+
+    public SensorRequest getRequest() {
+        return request;
+    }
+
+    public LocalDateTime getReceivedAt() {
+        return receivedAt;
+    }
+}
@@ -0,0 +1,73 @@
+package com.iot.sensors.dto;
+
+import jakarta.validation.constraints.Pattern;
+
+/**
+ * Partial update of a reading. Fields left out (or {@code null}) keep their current value, so
+ * a metric cannot be cleared through a patch.
+ */
+public class SensorPatchRequest {
+
+    @Pattern(regexp = ".*\\S.*", message = "Sensor name must not be blank")
+    private String name;
+
+    @Pattern(regexp = ".*\\S.*", message = "Location must not be blank")
+    private String location;
+
+    private Double temperature;
+
+    private Double humidity;
+
+    private Double pressure;
+
+    public SensorPatchRequest() {
+    }
+
+    public SensorPatchRequest(String name, String location, Double temperature, Double humidity, Double pressure) {
+        this.name = name;
+        this.location = location;
+        this.temperature = temperature;
+        this.humidity = humidity;
+        this.pressure = pressure;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getLocation() {
+        return location;
+    }
+
+    public void setLocation(String location) {
+        this.location = location;
+    }
+
+    public Double getTemperature() {
+        return temperature;
+    }
+
+    public void setTemperature(Double temperature) {
+        this.temperature = temperature;
+    }
+
+    public Double getHumidity() {
+        return humidity;
+    }
+
+    public void setHumidity(Double humidity) {
+        this.humidity = humidity;
+    }
+
+    public Double getPressure() {
+        return pressure;
+    }
+
+    public void setPressure(Double pressure) {
+        this.pressure = pressure;
+    }
+}
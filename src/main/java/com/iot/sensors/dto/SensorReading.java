@@ -0,0 +1,57 @@
+package com.iot.sensors.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read-only projection of a sensor row used by streaming queries, so large ranges can be
+ * scanned without attaching entities to the persistence context.
+ */
+public class SensorReading {
+
+    private final Long id;
+    private final String name;
+    private final String location;
+    private final LocalDateTime measurementTime;
+    private final Double temperature;
+    private final Double humidity;
+    private final Double pressure;
+
+    public SensorReading(Long id, String name, String location, LocalDateTime measurementTime,
+                         Double temperature, Double humidity, Double pressure) {
+        this.id = id;
+        this.name = name;
+        this.location = location;
+        this.measurementTime = measurementTime;
+        this.temperature = temperature;
+        this.humidity = humidity;
+        this.pressure = pressure;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getLocation() {
+        return location;
+    }
+
+    public LocalDateTime getMeasurementTime() {
+        return measurementTime;
+    }
+
+    public Double getTemperature() {
+        return temperature;
+    }
+
+    public Double getHumidity() {
+        return humidity;
+    }
+
+    public Double getPressure() {
+        return pressure;
+    }
+}
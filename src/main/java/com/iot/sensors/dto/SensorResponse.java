@@ -30,6 +30,19 @@ public class SensorResponse {
         this.updatedAt = sensor.getUpdatedAt();
     }
 
+    /**
+     * Response for an archived reading, which keeps the measurement but not the audit timestamps.
+     */
+    public SensorResponse(SensorReading reading) {
+        this.id = reading.getId();
+        this.name = reading.getName();
+        this.location = reading.getLocation();
+        this.temperature = reading.getTemperature();
+        this.humidity = reading.getHumidity();
+        this.pressure = reading.getPressure();
+        this.measurementTime = reading.getMeasurementTime();
+    }
+
     public Long getId() {
         return id;
     }
@@ -0,0 +1,33 @@
+package com.iot.sensors.dto;
+
+import java.time.LocalDateTime;
+
+public class SeriesPoint {
+
+    private LocalDateTime time;
+    private double value;
+
+    public SeriesPoint() {
+    }
+
+    public SeriesPoint(LocalDateTime time, double value) {
+        this.time = time;
+        this.value = value;
+    }
+
+    public LocalDateTime getTime() {
+        return time;
+    }
+
+    public void setTime(LocalDateTime time) {
+        this.time = time;
+    }
+
+    public double getValue() {
+        return value;
+    }
+
+    public void setValue(double value) {
+        this.value = value;
+    }
+}
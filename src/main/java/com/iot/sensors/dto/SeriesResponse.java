@@ -0,0 +1,85 @@
+package com.iot.sensors.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class SeriesResponse {
+
+    private String name;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private int points;
+    private List<SeriesPoint> temperature;
+    private List<SeriesPoint> humidity;
+    private List<SeriesPoint> pressure;
+
+    public SeriesResponse() {
+    }
+
+    public SeriesResponse(String name, LocalDateTime from, LocalDateTime to, int points,
+                          List<SeriesPoint> temperature, List<SeriesPoint> humidity, List<SeriesPoint> pressure) {
+        this.name = name;
+        this.from = from;
+        this.to = to;
+        this.points = points;
+        this.temperature = temperature;
+        this.humidity = humidity;
+        this.pressure = pressure;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public LocalDateTime getFrom() {
+        return from;
+    }
+
+    public void setFrom(LocalDateTime from) {
+        this.from = from;
+    }
+
+    public LocalDateTime getTo() {
+        return to;
+    }
+
+    public void setTo(LocalDateTime to) {
+        this.to = to;
+    }
+
+    public int getPoints() {
+        return points;
+    }
+
+    public void setPoints(int points) {
+        this.points = points;
+    }
+
+    public List<SeriesPoint> getTemperature() {
+        return temperature;
+    }
+
+    public void setTemperature(List<SeriesPoint> temperature) {
+        this.temperature = temperature;
+    }
+
+    public List<SeriesPoint> getHumidity() {
+        return humidity;
+    }
+
+    public void setHumidity(List<SeriesPoint> humidity) {
+        this.humidity = humidity;
+    }
+
+    public List<SeriesPoint> getPressure() {
+        return pressure;
+    }
+
+    public void setPressure(List<SeriesPoint> pressure) {
+        this.pressure = pressure;
+    }
+}
@@ -0,0 +1,92 @@
+package com.iot.sensors.dto;
+
+public class UdpIngestStatsResponse {
+
+    private long received;
+    private long malformed;
+    private long invalid;
+    private long rejected;
+    private long dropped;
+    private long persisted;
+    private long failed;
+    private int queued;
+
+    public UdpIngestStatsResponse() {
+    }
+
+    public UdpIngestStatsResponse(long received, long malformed, long invalid, long rejected, long dropped,
+                                  long persisted, long failed, int queued) {
+        this.received = received;
+        this.malformed = malformed;
+        this.invalid = invalid;
+        this.rejected = rejected;
+        this.dropped = dropped;
+        this.persisted = persisted;
+        this.failed = failed;
+        this.queued = queued;
+    }
+
+    public long getReceived() {
+        return received;
+    }
+
+    public void setReceived(long received) {
+        this.received = received;
+    }
+
+    public long getMalformed() {
+        return malformed;
+    }
+
+    public void setMalformed(long malformed) {
+        this.malformed = malformed;
+    }
+
+    public long getInvalid() {
+        return invalid;
+    }
+
+    public void setInvalid(long invalid) {
+        this.invalid = invalid;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public void setRejected(long rejected) {
+        this.rejected = rejected;
+    }
+
+    public long getDropped() {
+        return dropped;
+    }
+
+    public void setDropped(long dropped) {
+        this.dropped = dropped;
+    }
+
+    public long getPersisted() {
+        return persisted;
+    }
+
+    public void setPersisted(long persisted) {
+        this.persisted = persisted;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public void setFailed(long failed) {
+        this.failed = failed;
+    }
+
+    public int getQueued() {
+        return queued;
+    }
+
+    public void setQueued(int queued) {
+        this.queued = queued;
+    }
+}
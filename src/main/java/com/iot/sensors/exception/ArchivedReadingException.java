@@ -0,0 +1,12 @@
+package com.iot.sensors.exception;
+
+/**
+ * Thrown when a reading measured before the archive watermark is updated or deleted; archived
+ * readings are read-only and can only be removed with a bulk purge.
+ */
+public class ArchivedReadingException extends RuntimeException {
+
+    public ArchivedReadingException(Long id) {
+        super("Sensor reading " + id + " is archived and read-only");
+    }
+}
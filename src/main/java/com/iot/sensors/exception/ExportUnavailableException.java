@@ -0,0 +1,14 @@
+package com.iot.sensors.exception;
+
+/**
+ * Thrown when the columnar export cannot run because Arrow's memory allocator failed to
+ * initialise, typically when the JVM was started without
+ * {@code --add-opens=java.base/java.nio=ALL-UNNAMED}. The rest of the API is unaffected.
+ */
+public class ExportUnavailableException extends RuntimeException {
+
+    public ExportUnavailableException(Throwable cause) {
+        super("Arrow export is unavailable (" + cause + "); start the JVM with "
+                + "--add-opens=java.base/java.nio=ALL-UNNAMED", cause);
+    }
+}
@@ -0,0 +1,33 @@
+package com.iot.sensors.exception;
+
+/**
+ * Thrown when an ingest request is rejected before any database work, either because the
+ * device exceeded its rate limit or because the service is shedding load.
+ */
+public class IngestRejectedException extends RuntimeException {
+
+    private final boolean rateLimited;
+    private final long retryAfterSeconds;
+
+    private IngestRejectedException(String message, boolean rateLimited, long retryAfterSeconds) {
+        super(message);
+        this.rateLimited = rateLimited;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public static IngestRejectedException rateLimited(String sensorName, long retryAfterSeconds) {
+        return new IngestRejectedException("Rate limit exceeded for sensor: " + sensorName, true, retryAfterSeconds);
+    }
+
+    public static IngestRejectedException overloaded(long retryAfterSeconds) {
+        return new IngestRejectedException("Service overloaded, try again later", false, retryAfterSeconds);
+    }
+
+    public boolean isRateLimited() {
+        return rateLimited;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,13 @@
+package com.iot.sensors.exception;
+
+/**
+ * Thrown when request parameters or a request body fail validation that bean validation cannot
+ * express, such as an empty time range or an unknown metric. Mapped to 400; any other
+ * {@link IllegalArgumentException} is a bug and surfaces as 500.
+ */
+public class InvalidRequestException extends RuntimeException {
+
+    public InvalidRequestException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package com.iot.sensors.exception;
+
+/**
+ * Thrown when a purge is requested while another one is still running.
+ */
+public class PurgeInProgressException extends RuntimeException {
+
+    public PurgeInProgressException() {
+        super("A purge is already running");
+    }
+}
@@ -0,0 +1,22 @@
+package com.iot.sensors.exception;
+
+import com.iot.sensors.dto.RecalibrationResponse;
+
+/**
+ * Thrown when a recalibration fails part-way; the chunks committed so far stay applied and
+ * {@link #getProgress()} carries the key to resume after, so a retry does not apply the offset
+ * twice.
+ */
+public class RecalibrationFailedException extends RuntimeException {
+
+    private final RecalibrationResponse progress;
+
+    public RecalibrationFailedException(RecalibrationResponse progress, Throwable cause) {
+        super("Recalibration of " + progress.getName() + " failed after " + progress.getUpdated() + " rows", cause);
+        this.progress = progress;
+    }
+
+    public RecalibrationResponse getProgress() {
+        return progress;
+    }
+}
@@ -0,0 +1,116 @@
+package com.iot.sensors.generator;
+
+import com.iot.sensors.repository.SensorBatchInserter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+
+/**
+ * Bulk-loads a synthetic dataset from a {@link ReadingGenerator} at startup, enabled with
+ * {@code iot.generator.enabled=true}. The same seed and parameters always produce the same
+ * rows, so performance runs can be reproduced.
+ * <p>
+ * On PostgreSQL rows are streamed with {@code COPY ... FROM STDIN}, one COPY and one commit per
+ * {@code iot.generator.batch-size} rows, and the table is analyzed afterwards. On other
+ * databases (H2) rows are written with JDBC batch inserts, both by the {@link SensorBatchInserter}.
+ * Both paths bypass JPA and the ingest admission control. With {@code iot.generator.exit=true}
+ * the application exits once the dataset is loaded, so it can be used as a one-off command
+ * against a real database.
+ */
+@Component
+@ConditionalOnProperty(name = "iot.generator.enabled", havingValue = "true")
+public class DatasetGenerator implements CommandLineRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(DatasetGenerator.class);
+
+    private final DataSource dataSource;
+    private final SensorBatchInserter batchInserter;
+    private final ApplicationContext applicationContext;
+    private final long seed;
+    private final int devices;
+    private final int locations;
+    private final long readings;
+    private final LocalDateTime end;
+    private final int batchSize;
+    private final boolean exit;
+
+    public DatasetGenerator(DataSource dataSource,
+                            SensorBatchInserter batchInserter,
+                            ApplicationContext applicationContext,
+                            @Value("${iot.generator.seed:42}") long seed,
+                            @Value("${iot.generator.devices:1000}") int devices,
+                            @Value("${iot.generator.locations:50}") int locations,
+                            @Value("${iot.generator.readings:1000000}") long readings,
+                            @Value("${iot.generator.end:2025-01-01T00:00:00}") LocalDateTime end,
+                            @Value("${iot.generator.batch-size:10000}") int batchSize,
+                            @Value("${iot.generator.exit:false}") boolean exit) {
+        this.dataSource = dataSource;
+        this.batchInserter = batchInserter;
+        this.applicationContext = applicationContext;
+        this.seed = seed;
+        this.devices = devices;
+        this.locations = locations;
+        this.readings = readings;
+        this.end = end;
+        this.batchSize = batchSize;
+        this.exit = exit;
+    }
+
+    @Override
+    public void run(String... args) throws SQLException {
+        log.info("Generating {} readings for {} devices in {} locations (seed {}, ending {})",
+                readings, devices, locations, seed, end);
+        ReadingGenerator generator = new ReadingGenerator(seed, devices, locations, readings, end);
+        long started = System.nanoTime();
+        long loaded;
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                loaded = load(connection, generator, batchInserter.isPostgres(connection));
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+        log.info("Generated {} readings in {} s ({} rows/s)", loaded, String.format("%.1f", seconds),
+                Math.round(loaded / Math.max(seconds, 1e-3)));
+        if (exit) {
+            System.exit(SpringApplication.exit(applicationContext, () -> 0));
+        }
+    }
+
+    private long load(Connection connection, ReadingGenerator generator, boolean postgres) throws SQLException {
+        long loaded = 0;
+        long written;
+        while ((written = batchInserter.write(connection, generator, batchSize)) > 0) {
+            connection.commit();
+            loaded += written;
+            logProgress(loaded);
+        }
+        if (postgres) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("ANALYZE sensors");
+            }
+            connection.commit();
+        }
+        return loaded;
+    }
+
+    private void logProgress(long loaded) {
+        if (loaded % 1_000_000 < batchSize) {
+            log.info("Generated {} / {} readings", loaded, readings);
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.iot.sensors.generator;
+
+import com.iot.sensors.repository.SensorBatchInserter;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic source of synthetic readings that follow the simulators' behaviour: each
+ * device reports every 30 &plusmn; 10 seconds, 10% of the reports are lost, and each report carries
+ * one, two or all three metrics. Values follow a bounded random walk per device within the
+ * simulators' ranges, so series look like real sensors rather than noise.
+ * <p>
+ * Readings of all devices are produced in global time order, like live ingest would insert
+ * them. Every device has its own random stream derived from the seed, so the output only
+ * depends on the seed and the parameters. Memory is proportional to the number of devices.
+ */
+public class ReadingGenerator implements SensorBatchInserter.Rows {
+
+    private static final long INTERVAL_MILLIS = 30_000;
+    private static final long VARIATION_MILLIS = 10_000;
+    private static final double DELIVERY_RATE = 0.9;
+
+    private static final double[] MIN = {15.0, 30.0, 980.0};
+    private static final double[] MAX = {30.0, 80.0, 1040.0};
+    private static final double[] STEP = {0.1, 0.3, 0.2};
+
+    private final String[] names;
+    private final String[] locationNames;
+    private final long endMillis;
+    private final SplittableRandom[] randoms;
+    private final long[] nextMillis;
+    private final long[] remaining;
+    private final double[][] values;
+
+    // Binary min-heap of device indices ordered by their next report time
+    private final int[] heap;
+    private int heapSize;
+
+    private int device;
+    private long timeMillis;
+    private final Double[] current = new Double[3];
+
+    public ReadingGenerator(long seed, int devices, int locations, long readings, LocalDateTime end) {
+        if (devices < 1 || locations < 1 || readings < 0) {
+            throw new IllegalArgumentException("devices and locations must be positive and readings non-negative");
+        }
+        this.names = new String[devices];
+        this.locationNames = new String[locations];
+        for (int i = 0; i < locations; i++) {
+            locationNames[i] = String.format("Location-%04d", i + 1);
+        }
+        this.endMillis = end.toInstant(ZoneOffset.UTC).toEpochMilli();
+        this.randoms = new SplittableRandom[devices];
+        this.nextMillis = new long[devices];
+        this.remaining = new long[devices];
+        this.values = new double[devices][3];
+        this.heap = new int[devices];
+
+        for (int i = 0; i < devices; i++) {
+            SplittableRandom random = new SplittableRandom(seed + i * 0x9E3779B97F4A7C15L);
+            randoms[i] = random;
+            names[i] = String.format("Sensor-%06d", i + 1);
+            remaining[i] = readings / devices + (i < readings % devices ? 1 : 0);
+            // Leave 5% slack so that jitter rarely pushes a device's last report past the end
+            long span = (long) (remaining[i] * INTERVAL_MILLIS / DELIVERY_RATE * 1.05);
+            nextMillis[i] = endMillis - span + random.nextLong(INTERVAL_MILLIS);
+            for (int metric = 0; metric < 3; metric++) {
+                values[i][metric] = MIN[metric] + random.nextDouble() * (MAX[metric] - MIN[metric]);
+            }
+            if (remaining[i] > 0) {
+                push(i);
+            }
+        }
+    }
+
+    /**
+     * Advances to the next reading.
+     *
+     * @return {@code false} once every device has reported its share or reached the end time
+     */
+    public boolean next() {
+        while (heapSize > 0) {
+            int candidate = heap[0];
+            long time = nextMillis[candidate];
+            if (time >= endMillis) {
+                pop();
+                continue;
+            }
+            SplittableRandom random = randoms[candidate];
+            walk(candidate, random);
+            nextMillis[candidate] = time + INTERVAL_MILLIS - VARIATION_MILLIS + random.nextLong(2 * VARIATION_MILLIS + 1);
+            boolean lost = random.nextInt(10) == 0;
+            if (!lost) {
+                remaining[candidate]--;
+                fillFields(candidate, random);
+            }
+            if (remaining[candidate] == 0) {
+                pop();
+            } else {
+                siftDown(0);
+            }
+            if (!lost) {
+                device = candidate;
+                timeMillis = time;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public String getName() {
+        return names[device];
+    }
+
+    public String getLocation() {
+        return locationNames[device % locationNames.length];
+    }
+
+    public LocalDateTime getMeasurementTime() {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(timeMillis, 1000L),
+                (int) Math.floorMod(timeMillis, 1000L) * 1_000_000, ZoneOffset.UTC);
+    }
+
+    public Double getTemperature() {
+        return current[0];
+    }
+
+    public Double getHumidity() {
+        return current[1];
+    }
+
+    public Double getPressure() {
+        return current[2];
+    }
+
+    private void walk(int index, SplittableRandom random) {
+        for (int metric = 0; metric < 3; metric++) {
+            double value = values[index][metric] + (random.nextDouble() * 2 - 1) * STEP[metric];
+            if (value < MIN[metric] || value > MAX[metric]) {
+                value = values[index][metric];
+            }
+            values[index][metric] = value;
+        }
+    }
+
+    /**
+     * Same field pattern as the simulators: one random field, two (one random field excluded)
+     * or all three, each with equal probability.
+     */
+    private void fillFields(int index, SplittableRandom random) {
+        int fieldCount = random.nextInt(3) + 1;
+        int chosen = random.nextInt(3);
+        for (int metric = 0; metric < 3; metric++) {
+            boolean present = fieldCount == 3 || (fieldCount == 1 ? metric == chosen : metric != chosen);
+            current[metric] = present ? Math.round(values[index][metric] * 100) / 100.0 : null;
+        }
+    }
+
+    private void push(int index) {
+        heap[heapSize] = index;
+        int child = heapSize++;
+        while (child > 0) {
+            int parent = (child - 1) / 2;
+            if (!before(heap[child], heap[parent])) {
+                break;
+            }
+            swap(child, parent);
+            child = parent;
+        }
+    }
+
+    private void pop() {
+        heap[0] = heap[--heapSize];
+        siftDown(0);
+    }
+
+    private void siftDown(int parent) {
+        while (true) {
+            int left = 2 * parent + 1;
+            if (left >= heapSize) {
+                return;
+            }
+            int child = left + 1 < heapSize && before(heap[left + 1], heap[left]) ? left + 1 : left;
+            if (!before(heap[child], heap[parent])) {
+                return;
+            }
+            swap(child, parent);
+            parent = child;
+        }
+    }
+
+    private boolean before(int a, int b) {
+        return nextMillis[a] < nextMillis[b] || (nextMillis[a] == nextMillis[b] && a < b);
+    }
+
+    private void swap(int i, int j) {
+        int swap = heap[i];
+        heap[i] = heap[j];
+        heap[j] = swap;
+    }
+}
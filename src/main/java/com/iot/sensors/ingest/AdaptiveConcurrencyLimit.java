@@ -0,0 +1,85 @@
+package com.iot.sensors.ingest;
+
+/**
+ * Concurrency limit that adapts to measured latency instead of a fixed threshold, in the
+ * style of gradient limiters (TCP Vegas): a short-term EWMA of request latency is compared
+ * with a long-term EWMA that stands in for the latency without queueing.
+ * <p>
+ * While recent latency stays within {@code tolerance} times the baseline, the limit grows
+ * by about its square root per sample, the headroom a queue of that size needs. Once
+ * requests start queueing (for a pooled connection, for row locks, for the disk) latency
+ * rises above the tolerance and the limit shrinks in proportion, by at most half per sample.
+ * The limit only grows while at least half of it is in use, so a quiet service does not
+ * drift to the maximum. Updates are smoothed and kept within {@code [minLimit, maxLimit]}.
+ */
+public class AdaptiveConcurrencyLimit {
+
+    private static final double SHORT_SMOOTHING = 0.2;
+    private static final double LONG_SMOOTHING = 0.002;
+    private static final double LIMIT_SMOOTHING = 0.2;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+
+    private double limit;
+    private double shortLatency;
+    private double longLatency;
+    private volatile int currentLimit;
+    private volatile double currentLatencyNanos;
+
+    public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, double tolerance) {
+        if (minLimit < 1 || maxLimit < minLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Limits must satisfy 1 <= min <= initial <= max");
+        }
+        if (tolerance < 1.0) {
+            throw new IllegalArgumentException("Latency tolerance must be at least 1");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.limit = initialLimit;
+        this.currentLimit = initialLimit;
+    }
+
+    public int getLimit() {
+        return currentLimit;
+    }
+
+    /**
+     * Short-term average latency in milliseconds, 0 until the first sample.
+     */
+    public double getLatencyMillis() {
+        return currentLatencyNanos / 1_000_000.0;
+    }
+
+    /**
+     * Records the latency of one completed request.
+     *
+     * @param inFlight requests in flight when it completed, itself included
+     */
+    public synchronized void onSample(long latencyNanos, int inFlight) {
+        double sample = Math.max(latencyNanos, 1);
+        if (longLatency == 0) {
+            shortLatency = sample;
+            longLatency = sample;
+            currentLatencyNanos = sample;
+            return;
+        }
+        shortLatency += SHORT_SMOOTHING * (sample - shortLatency);
+        longLatency += LONG_SMOOTHING * (sample - longLatency);
+        // After an overload the baseline is inflated; let it follow latency back down
+        if (longLatency > 2 * shortLatency) {
+            longLatency *= 0.95;
+        }
+        currentLatencyNanos = shortLatency;
+
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * longLatency / shortLatency));
+        if (gradient >= 1.0 && inFlight < limit / 2) {
+            return;
+        }
+        double target = limit * gradient + Math.sqrt(limit);
+        limit = Math.max(minLimit, Math.min(maxLimit, limit * (1 - LIMIT_SMOOTHING) + target * LIMIT_SMOOTHING));
+        currentLimit = (int) limit;
+    }
+}
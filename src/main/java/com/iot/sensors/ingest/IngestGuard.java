@@ -0,0 +1,131 @@
+package com.iot.sensors.ingest;
+
+import com.iot.sensors.dto.IngestStatsResponse;
+import com.iot.sensors.exception.IngestRejectedException;
+import com.zaxxer.hikari.HikariConfigMXBean;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.jdbc.DataSourceUnwrapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Admission control for the ingest path, applied before any database work.
+ * <p>
+ * Requests are first checked against global load: when more ingest requests are in flight
+ * than the {@link AdaptiveConcurrencyLimit} allows, the request is shed with 503. The limit
+ * follows the latency of admitted requests, so it shrinks as soon as they start queueing for
+ * a Hikari connection or the database, whatever the pool size or hardware, and grows back
+ * when latency recovers. Otherwise the device's token bucket is consulted and the request is
+ * rejected with 429 when the device exceeds its rate.
+ */
+@Component
+public class IngestGuard {
+
+    private final DataSource dataSource;
+    private final TokenBucketRateLimiter rateLimiter;
+    private final boolean rateLimitEnabled;
+    private final boolean sheddingEnabled;
+    private final AdaptiveConcurrencyLimit concurrencyLimit;
+    private final long shedRetryAfterSeconds;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder rateLimited = new LongAdder();
+    private final LongAdder shed = new LongAdder();
+    private volatile HikariPoolMXBean pool;
+
+    public IngestGuard(DataSource dataSource,
+                       @Value("${iot.ingest.rate-limit.enabled:true}") boolean rateLimitEnabled,
+                       @Value("${iot.ingest.rate-limit.per-second:1.0}") double permitsPerSecond,
+                       @Value("${iot.ingest.rate-limit.burst:10}") int burst,
+                       @Value("${iot.ingest.shedding.enabled:true}") boolean sheddingEnabled,
+                       @Value("${iot.ingest.shedding.initial-limit:100}") int initialLimit,
+                       @Value("${iot.ingest.shedding.min-limit:10}") int minLimit,
+                       @Value("${iot.ingest.shedding.max-in-flight:500}") int maxInFlight,
+                       @Value("${iot.ingest.shedding.latency-tolerance:2.0}") double latencyTolerance,
+                       @Value("${iot.ingest.shedding.retry-after-seconds:1}") long shedRetryAfterSeconds) {
+        this.dataSource = dataSource;
+        this.rateLimiter = new TokenBucketRateLimiter(permitsPerSecond, burst);
+        this.rateLimitEnabled = rateLimitEnabled;
+        this.sheddingEnabled = sheddingEnabled;
+        this.concurrencyLimit = new AdaptiveConcurrencyLimit(initialLimit, minLimit, maxInFlight, latencyTolerance);
+        this.shedRetryAfterSeconds = shedRetryAfterSeconds;
+    }
+
+    /**
+     * Admits one reading from {@code sensorName}. Every successful call must be paired with
+     * {@link #release(long)}, or with {@link #release()} when the caller's latency does not
+     * reflect database load.
+     *
+     * @return the admission time to pass to {@link #release(long)}
+     * @throws IngestRejectedException if the request is shed or rate limited
+     */
+    public long acquire(String sensorName) {
+        int current = inFlight.incrementAndGet();
+        try {
+            if (sheddingEnabled && current > concurrencyLimit.getLimit()) {
+                shed.increment();
+                throw IngestRejectedException.overloaded(shedRetryAfterSeconds);
+            }
+            if (rateLimitEnabled) {
+                long waitNanos = rateLimiter.tryAcquire(sensorName);
+                if (waitNanos > 0) {
+                    rateLimited.increment();
+                    long retryAfterSeconds = TimeUnit.NANOSECONDS.toSeconds(waitNanos - 1) + 1;
+                    throw IngestRejectedException.rateLimited(sensorName, retryAfterSeconds);
+                }
+            }
+        } catch (IngestRejectedException ex) {
+            inFlight.decrementAndGet();
+            throw ex;
+        }
+        admitted.increment();
+        return System.nanoTime();
+    }
+
+    /**
+     * Releases a request admitted at {@code admittedAt} and feeds its latency to the
+     * concurrency limit.
+     */
+    public void release(long admittedAt) {
+        concurrencyLimit.onSample(System.nanoTime() - admittedAt, inFlight.getAndDecrement());
+    }
+
+    /**
+     * Releases a request without a latency sample, for callers that only hand readings off
+     * (the UDP listener queues them for a batch writer).
+     */
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    public IngestStatsResponse getStats() {
+        return new IngestStatsResponse(admitted.sum(), rateLimited.sum(), shed.sum(), inFlight.get(),
+                concurrencyLimit.getLimit(), concurrencyLimit.getLatencyMillis(), poolWaiters(), rateLimiter.size());
+    }
+
+    @Scheduled(fixedDelayString = "${iot.ingest.rate-limit.eviction-ms:60000}")
+    public void evictIdleBuckets() {
+        rateLimiter.evictIdle();
+    }
+
+    private int poolWaiters() {
+        HikariPoolMXBean mxBean = pool;
+        if (mxBean == null) {
+            HikariDataSource hikari = DataSourceUnwrapper.unwrap(dataSource, HikariConfigMXBean.class,
+                    HikariDataSource.class);
+            if (hikari != null) {
+                mxBean = hikari.getHikariPoolMXBean();
+                pool = mxBean;
+            }
+        }
+        return mxBean != null ? mxBean.getThreadsAwaitingConnection() : 0;
+    }
+}
@@ -0,0 +1,68 @@
+package com.iot.sensors.ingest;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-key token bucket implemented as a generic cell rate algorithm (GCRA): each key keeps
+ * a single "theoretical arrival time" updated with compare-and-set, so acquiring a token is
+ * lock-free and needs no background refill. Keys live in a {@link ConcurrentHashMap}, whose
+ * bins are locked only when a new key is first inserted.
+ */
+public class TokenBucketRateLimiter {
+
+    private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+    private final LongSupplier clock;
+
+    public TokenBucketRateLimiter(double permitsPerSecond, int burst) {
+        this(permitsPerSecond, burst, System::nanoTime);
+    }
+
+    TokenBucketRateLimiter(double permitsPerSecond, int burst, LongSupplier clock) {
+        if (permitsPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Rate must be positive and burst at least 1");
+        }
+        this.emissionIntervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+        this.burstToleranceNanos = emissionIntervalNanos * burst;
+        this.clock = clock;
+    }
+
+    /**
+     * Takes one token for {@code key}.
+     *
+     * @return 0 if the token was granted, otherwise the number of nanoseconds until the next
+     * token becomes available
+     */
+    public long tryAcquire(String key) {
+        AtomicLong state = buckets.computeIfAbsent(key, k -> new AtomicLong(Long.MIN_VALUE));
+        long now = clock.getAsLong();
+        while (true) {
+            long arrival = state.get();
+            long next = Math.max(arrival, now) + emissionIntervalNanos;
+            long allowedAt = next - burstToleranceNanos;
+            if (allowedAt > now) {
+                return allowedAt - now;
+            }
+            if (state.compareAndSet(arrival, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Drops keys whose bucket has refilled completely; they behave exactly like new keys.
+     */
+    public void evictIdle() {
+        long now = clock.getAsLong();
+        buckets.values().removeIf(state -> state.get() <= now);
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+}
@@ -0,0 +1,115 @@
+package com.iot.sensors.ingest.udp;
+
+import com.iot.sensors.dto.SensorRequest;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compact binary encoding of one sensor reading per UDP datagram (big-endian):
+ * <pre>
+ * version      1 byte   (0x01)
+ * flags        1 byte   bit 0 temperature, bit 1 humidity, bit 2 pressure
+ * name         1 byte length + UTF-8 bytes
+ * location     1 byte length + UTF-8 bytes
+ * values       4 bytes each, signed hundredths, only for the flagged metrics in the order above
+ * </pre>
+ * A reading with all three metrics and short names fits in well under 64 bytes.
+ */
+public final class ReadingDatagramCodec {
+
+    public static final byte VERSION = 0x01;
+    public static final int FLAG_TEMPERATURE = 0x01;
+    public static final int FLAG_HUMIDITY = 0x02;
+    public static final int FLAG_PRESSURE = 0x04;
+    public static final int MAX_DATAGRAM_SIZE = 2 + 2 * 256 + 3 * 4;
+
+    private static final ThreadLocal<CharsetDecoder> UTF8 = ThreadLocal.withInitial(() ->
+            StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT));
+
+    private ReadingDatagramCodec() {
+    }
+
+    /**
+     * Decodes the remaining bytes of {@code datagram}.
+     *
+     * @throws IllegalArgumentException if the datagram is truncated, has an unknown version or
+     *                                  flags, invalid UTF-8 or trailing bytes
+     */
+    public static SensorRequest decode(ByteBuffer datagram) {
+        try {
+            if (datagram.get() != VERSION) {
+                throw new IllegalArgumentException("Unsupported datagram version");
+            }
+            int flags = datagram.get() & 0xFF;
+            if ((flags & ~(FLAG_TEMPERATURE | FLAG_HUMIDITY | FLAG_PRESSURE)) != 0) {
+                throw new IllegalArgumentException("Unknown flags: " + flags);
+            }
+            String name = readString(datagram);
+            String location = readString(datagram);
+            Double temperature = (flags & FLAG_TEMPERATURE) != 0 ? readValue(datagram) : null;
+            Double humidity = (flags & FLAG_HUMIDITY) != 0 ? readValue(datagram) : null;
+            Double pressure = (flags & FLAG_PRESSURE) != 0 ? readValue(datagram) : null;
+            if (datagram.hasRemaining()) {
+                throw new IllegalArgumentException("Trailing bytes in datagram");
+            }
+            return new SensorRequest(name, location, temperature, humidity, pressure);
+        } catch (BufferUnderflowException ex) {
+            throw new IllegalArgumentException("Truncated datagram", ex);
+        }
+    }
+
+    public static void encode(SensorRequest request, ByteBuffer out) {
+        int flags = (request.getTemperature() != null ? FLAG_TEMPERATURE : 0)
+                | (request.getHumidity() != null ? FLAG_HUMIDITY : 0)
+                | (request.getPressure() != null ? FLAG_PRESSURE : 0);
+        out.put(VERSION);
+        out.put((byte) flags);
+        writeString(request.getName(), out);
+        writeString(request.getLocation(), out);
+        writeValue(request.getTemperature(), out);
+        writeValue(request.getHumidity(), out);
+        writeValue(request.getPressure(), out);
+    }
+
+    private static String readString(ByteBuffer datagram) {
+        int length = datagram.get() & 0xFF;
+        if (length > datagram.remaining()) {
+            throw new IllegalArgumentException("Truncated datagram");
+        }
+        int limit = datagram.limit();
+        datagram.limit(datagram.position() + length);
+        try {
+            return UTF8.get().decode(datagram).toString();
+        } catch (CharacterCodingException ex) {
+            throw new IllegalArgumentException("Invalid UTF-8 in datagram", ex);
+        } finally {
+            datagram.limit(limit);
+        }
+    }
+
+    private static Double readValue(ByteBuffer datagram) {
+        return datagram.getInt() / 100.0;
+    }
+
+    private static void writeString(String value, ByteBuffer out) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 255) {
+            throw new IllegalArgumentException("Value too long for datagram: " + value);
+        }
+        out.put((byte) bytes.length);
+        out.put(bytes);
+    }
+
+    private static void writeValue(Double value, ByteBuffer out) {
+        if (value != null) {
+            out.putInt((int) Math.round(value * 100));
+        }
+    }
+}
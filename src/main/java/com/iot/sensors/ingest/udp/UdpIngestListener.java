@@ -0,0 +1,227 @@
+package com.iot.sensors.ingest.udp;
+
+import com.iot.sensors.dto.ReceivedReading;
+import com.iot.sensors.dto.SensorRequest;
+import com.iot.sensors.dto.UdpIngestStatsResponse;
+import com.iot.sensors.exception.IngestRejectedException;
+import com.iot.sensors.ingest.IngestGuard;
+import com.iot.sensors.service.SensorService;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Optional UDP ingest endpoint for constrained devices, enabled with {@code iot.udp.enabled=true}.
+ * <p>
+ * Receiver threads read datagrams from a blocking {@link DatagramChannel}, each into its own
+ * reusable direct buffer, decode them with {@link ReadingDatagramCodec} and apply the same
+ * bean validation and admission control as {@code POST /api/sensors}. Accepted readings are
+ * queued and a writer thread persists them in batches through
+ * {@link SensorService#createSensors(List)}, one transaction per batch. Each reading keeps the
+ * time its datagram was received as its measurement time, so queueing and batching delays do not
+ * shift it. When the queue is full, datagrams are dropped; UDP gives no delivery guarantee anyway.
+ */
+@Component
+@Lazy(false)
+@ConditionalOnProperty(name = "iot.udp.enabled", havingValue = "true")
+public class UdpIngestListener implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(UdpIngestListener.class);
+
+    private final SensorService sensorService;
+    private final IngestGuard ingestGuard;
+    private final Validator validator;
+    private final int port;
+    private final int receivers;
+    private final int batchSize;
+    private final long flushMillis;
+    private final int receiveBufferBytes;
+    private final BlockingQueue<ReceivedReading> queue;
+
+    private final LongAdder received = new LongAdder();
+    private final LongAdder malformed = new LongAdder();
+    private final LongAdder invalid = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder persisted = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    private volatile DatagramChannel channel;
+    private volatile boolean running;
+    private final List<Thread> threads = new ArrayList<>();
+
+    public UdpIngestListener(SensorService sensorService,
+                             IngestGuard ingestGuard,
+                             Validator validator,
+                             @Value("${iot.udp.port:9876}") int port,
+                             @Value("${iot.udp.receivers:1}") int receivers,
+                             @Value("${iot.udp.queue-capacity:65536}") int queueCapacity,
+                             @Value("${iot.udp.batch-size:500}") int batchSize,
+                             @Value("${iot.udp.flush-ms:50}") long flushMillis,
+                             @Value("${iot.udp.receive-buffer-bytes:4194304}") int receiveBufferBytes) {
+        this.sensorService = sensorService;
+        this.ingestGuard = ingestGuard;
+        this.validator = validator;
+        this.port = port;
+        this.receivers = receivers;
+        this.batchSize = batchSize;
+        this.flushMillis = flushMillis;
+        this.receiveBufferBytes = receiveBufferBytes;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    @Override
+    public void start() {
+        try {
+            channel = DatagramChannel.open();
+            channel.setOption(StandardSocketOptions.SO_RCVBUF, receiveBufferBytes);
+            channel.bind(new InetSocketAddress(port));
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not bind UDP ingest port " + port, ex);
+        }
+        running = true;
+        for (int i = 0; i < receivers; i++) {
+            threads.add(startThread(this::receiveLoop, "udp-ingest-receiver-" + i));
+        }
+        threads.add(startThread(this::writeLoop, "udp-ingest-writer"));
+        log.info("UDP ingest listening on port {}", getLocalPort());
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        try {
+            channel.close();
+        } catch (IOException ex) {
+            log.warn("Error closing UDP ingest channel: {}", ex.getMessage());
+        }
+        for (Thread thread : threads) {
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        threads.clear();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    public int getLocalPort() {
+        try {
+            return ((InetSocketAddress) channel.getLocalAddress()).getPort();
+        } catch (IOException ex) {
+            return port;
+        }
+    }
+
+    public UdpIngestStatsResponse getStats() {
+        return new UdpIngestStatsResponse(received.sum(), malformed.sum(), invalid.sum(), rejected.sum(),
+                dropped.sum(), persisted.sum(), failed.sum(), queue.size());
+    }
+
+    private Thread startThread(Runnable task, String name) {
+        Thread thread = new Thread(task, name);
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    private void receiveLoop() {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(ReadingDatagramCodec.MAX_DATAGRAM_SIZE + 1);
+        while (running) {
+            buffer.clear();
+            try {
+                if (channel.receive(buffer) == null) {
+                    continue;
+                }
+            } catch (ClosedChannelException ex) {
+                break;
+            } catch (IOException ex) {
+                log.warn("UDP receive failed: {}", ex.getMessage());
+                continue;
+            }
+            LocalDateTime receivedAt = LocalDateTime.now();
+            received.increment();
+            buffer.flip();
+            handle(buffer, receivedAt);
+        }
+    }
+
+    private void handle(ByteBuffer datagram, LocalDateTime receivedAt) {
+        SensorRequest request;
+        try {
+            if (datagram.remaining() > ReadingDatagramCodec.MAX_DATAGRAM_SIZE) {
+                throw new IllegalArgumentException("Datagram too large");
+            }
+            request = ReadingDatagramCodec.decode(datagram);
+        } catch (IllegalArgumentException ex) {
+            malformed.increment();
+            return;
+        }
+        if (!validator.validate(request).isEmpty()) {
+            invalid.increment();
+            return;
+        }
+        try {
+            ingestGuard.acquire(request.getName());
+        } catch (IngestRejectedException ex) {
+            rejected.increment();
+            return;
+        }
+        try {
+            if (!queue.offer(new ReceivedReading(request, receivedAt))) {
+                dropped.increment();
+            }
+        } finally {
+            ingestGuard.release();
+        }
+    }
+
+    private void writeLoop() {
+        List<ReceivedReading> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                ReceivedReading first = queue.poll(flushMillis, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                sensorService.createSensors(batch);
+                persisted.add(batch.size());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (RuntimeException ex) {
+                failed.add(batch.size());
+                log.warn("Could not persist batch of {} UDP readings: {}", batch.size(), ex.getMessage());
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.iot.sensors.jdbc;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Opens a {@link SqlStatistics} unit of work for each handled request and logs its totals
+ * when the request completes: at DEBUG always, at WARN when the request issued more than
+ * {@code iot.sql.warn-statements} statements, which usually means an N+1 pattern.
+ * <p>
+ * The endpoint is recorded as the HTTP method and the matched URL pattern, so all requests
+ * to the same handler share one label. Work continued on another thread by async handlers
+ * is not counted.
+ */
+public class SqlAccountingInterceptor implements AsyncHandlerInterceptor {
+
+    private static final Logger log = LoggerFactory.getLogger(SqlAccountingInterceptor.class);
+
+    private final int warnStatements;
+
+    public SqlAccountingInterceptor(int warnStatements) {
+        this.warnStatements = warnStatements;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        SqlStatistics.begin(request.getMethod() + " " + (pattern != null ? pattern : request.getRequestURI()));
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        SqlStatistics.end();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        SqlStatistics statistics = SqlStatistics.end();
+        if (statistics == null || statistics.getStatementCount() == 0) {
+            return;
+        }
+        if (statistics.getStatementCount() > warnStatements) {
+            log.warn("{} issued more than {} SQL statements: {}", statistics, warnStatements, statistics.getStatements());
+        } else {
+            log.debug("{}", statistics);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.iot.sensors.jdbc;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+import javax.sql.DataSource;
+
+/**
+ * Wraps every {@link DataSource} bean in the accounting proxies once it is fully initialized,
+ * so the pool underneath is configured exactly as without accounting. The bean is no longer
+ * an instance of the pool class: reach the pool with {@code DataSourceUnwrapper} or
+ * {@code unwrap}. Only registered when {@code iot.sql.accounting.enabled=true}.
+ */
+public class SqlAccountingPostProcessor implements BeanPostProcessor {
+
+    private final SqlAccountingProxies proxies;
+
+    public SqlAccountingPostProcessor(long slowQueryMillis) {
+        this.proxies = new SqlAccountingProxies(slowQueryMillis);
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        return bean instanceof DataSource ? proxies.wrap((DataSource) bean) : bean;
+    }
+}
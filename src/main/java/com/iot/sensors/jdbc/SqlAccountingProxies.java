@@ -0,0 +1,187 @@
+package com.iot.sensors.jdbc;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.util.ClassUtils;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JDK dynamic proxies that account JDBC work to the current {@link SqlStatistics}: a wrapped
+ * {@code DataSource} hands out proxied connections, whose statements time every
+ * {@code execute*} call and count affected rows, and whose result sets count fetched rows.
+ * Statements slower than the threshold are logged with their SQL (bind placeholders, no
+ * values) and the endpoint that issued them.
+ * <p>
+ * {@code unwrap} and {@code isWrapperFor} go straight to the target, so pool- and
+ * driver-specific access (Hikari's pool MXBean, the PostgreSQL copy API) keeps working; work
+ * done on an unwrapped object is not accounted.
+ */
+final class SqlAccountingProxies {
+
+    private static final Logger log = LoggerFactory.getLogger(SqlAccountingProxies.class);
+
+    private final long slowQueryNanos;
+
+    SqlAccountingProxies(long slowQueryMillis) {
+        this.slowQueryNanos = TimeUnit.MILLISECONDS.toNanos(slowQueryMillis);
+    }
+
+    /**
+     * Wraps the pool in a {@link DelegatingDataSource}, which Spring Boot's
+     * {@code DataSourceUnwrapper} sees through, so actuator metrics and JMX still find the pool.
+     */
+    DataSource wrap(DataSource dataSource) {
+        return new DelegatingDataSource(dataSource) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                return wrapConnection(super.getConnection());
+            }
+
+            @Override
+            public Connection getConnection(String username, String password) throws SQLException {
+                return wrapConnection(super.getConnection(username, password));
+            }
+        };
+    }
+
+    private Connection wrapConnection(Connection connection) {
+        return proxy(connection, new DelegatingHandler(connection) {
+            @Override
+            Object handle(Object proxy, Method method, Object[] args) throws Throwable {
+                Object result = invoke(method, args);
+                if (result instanceof Statement) {
+                    String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : null;
+                    return wrapStatement((Statement) result, sql);
+                }
+                return result;
+            }
+        });
+    }
+
+    private Statement wrapStatement(Statement statement, String preparedSql) {
+        return proxy(statement, new DelegatingHandler(statement) {
+            @Override
+            Object handle(Object proxy, Method method, Object[] args) throws Throwable {
+                String name = method.getName();
+                if (name.equals("getResultSet")) {
+                    return wrapResultSet((ResultSet) invoke(method, args));
+                }
+                if (!name.startsWith("execute")) {
+                    return invoke(method, args);
+                }
+                String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : preparedSql;
+                long started = System.nanoTime();
+                Object result = invoke(method, args);
+                long elapsed = System.nanoTime() - started;
+                SqlStatistics statistics = SqlStatistics.current();
+                if (statistics != null) {
+                    statistics.statementExecuted(sql, elapsed);
+                    statistics.rowsProcessed(affectedRows(result));
+                }
+                if (elapsed >= slowQueryNanos) {
+                    log.warn("Slow SQL ({} ms, {}): {}", TimeUnit.NANOSECONDS.toMillis(elapsed),
+                            statistics != null ? statistics.getEndpoint() : "no request", sql);
+                }
+                return result instanceof ResultSet ? wrapResultSet((ResultSet) result) : result;
+            }
+        });
+    }
+
+    private ResultSet wrapResultSet(ResultSet resultSet) {
+        if (resultSet == null) {
+            return null;
+        }
+        return proxy(resultSet, new DelegatingHandler(resultSet) {
+            @Override
+            Object handle(Object proxy, Method method, Object[] args) throws Throwable {
+                Object result = invoke(method, args);
+                if (Boolean.TRUE.equals(result) && method.getName().equals("next")) {
+                    SqlStatistics statistics = SqlStatistics.current();
+                    if (statistics != null) {
+                        statistics.rowsProcessed(1);
+                    }
+                }
+                return result;
+            }
+        });
+    }
+
+    private static long affectedRows(Object result) {
+        if (result instanceof Integer || result instanceof Long) {
+            return Math.max(0, ((Number) result).longValue());
+        }
+        long rows = 0;
+        if (result instanceof int[]) {
+            for (int count : (int[]) result) {
+                rows += Math.max(0, count);
+            }
+        } else if (result instanceof long[]) {
+            for (long count : (long[]) result) {
+                rows += Math.max(0, count);
+            }
+        }
+        return rows;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(T target, DelegatingHandler handler) {
+        Class<?>[] interfaces = ClassUtils.getAllInterfacesForClass(target.getClass(), target.getClass().getClassLoader());
+        return (T) Proxy.newProxyInstance(SqlAccountingProxies.class.getClassLoader(),
+                publicInterfaces(interfaces), handler);
+    }
+
+    /**
+     * Driver classes often implement package-private interfaces that cannot be proxied from
+     * here; keep the public ones, which always include the JDBC interface of the target.
+     */
+    private static Class<?>[] publicInterfaces(Class<?>[] interfaces) {
+        return Arrays.stream(interfaces)
+                .filter(type -> Modifier.isPublic(type.getModifiers()))
+                .filter(type -> ClassUtils.isVisible(type, SqlAccountingProxies.class.getClassLoader()))
+                .toArray(Class<?>[]::new);
+    }
+
+    private abstract static class DelegatingHandler implements InvocationHandler {
+
+        private final Object target;
+
+        DelegatingHandler(Object target) {
+            this.target = target;
+        }
+
+        abstract Object handle(Object proxy, Method method, Object[] args) throws Throwable;
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    return handle(proxy, method, args);
+            }
+        }
+
+        Object invoke(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException ex) {
+                throw ex.getCause();
+            }
+        }
+    }
+}
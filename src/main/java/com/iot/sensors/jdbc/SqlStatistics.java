@@ -0,0 +1,92 @@
+package com.iot.sensors.jdbc;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * SQL executed on the current thread within one unit of work, usually an HTTP request (see
+ * {@link SqlAccountingInterceptor}). Counted by the accounting proxies around the
+ * {@code DataSource}; statements run outside a unit of work are not counted, but still take
+ * part in slow-query logging.
+ */
+public final class SqlStatistics {
+
+    private static final ThreadLocal<SqlStatistics> CURRENT = new ThreadLocal<>();
+    private static final int MAX_RECORDED_STATEMENTS = 50;
+
+    private final String endpoint;
+    private final List<String> statements = new ArrayList<>();
+    private int statementCount;
+    private long rows;
+    private long jdbcNanos;
+
+    private SqlStatistics(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    /**
+     * Starts accounting on the current thread, replacing any unfinished unit of work.
+     */
+    public static SqlStatistics begin(String endpoint) {
+        SqlStatistics statistics = new SqlStatistics(endpoint);
+        CURRENT.set(statistics);
+        return statistics;
+    }
+
+    /**
+     * Stops accounting on the current thread.
+     *
+     * @return the statistics of the finished unit of work, or {@code null} if none was started
+     */
+    public static SqlStatistics end() {
+        SqlStatistics statistics = CURRENT.get();
+        CURRENT.remove();
+        return statistics;
+    }
+
+    static SqlStatistics current() {
+        return CURRENT.get();
+    }
+
+    void statementExecuted(String sql, long nanos) {
+        statementCount++;
+        jdbcNanos += nanos;
+        if (statements.size() < MAX_RECORDED_STATEMENTS) {
+            statements.add(sql);
+        }
+    }
+
+    void rowsProcessed(long count) {
+        rows += count;
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public int getStatementCount() {
+        return statementCount;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public long getJdbcNanos() {
+        return jdbcNanos;
+    }
+
+    /**
+     * SQL of the first {@value #MAX_RECORDED_STATEMENTS} statements, without bind values.
+     */
+    public List<String> getStatements() {
+        return Collections.unmodifiableList(statements);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d statements, %d rows, %.1f ms JDBC",
+                endpoint, statementCount, rows, jdbcNanos / 1e6);
+    }
+}
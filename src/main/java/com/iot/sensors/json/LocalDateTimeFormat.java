@@ -0,0 +1,74 @@
+package com.iot.sensors.json;
+
+import tools.jackson.core.JsonGenerator;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Writes {@link LocalDateTime} values exactly as {@link DateTimeFormatter#ISO_LOCAL_DATE_TIME}
+ * does (seconds always present, fraction only when non-zero and without trailing zeros), but
+ * straight into a reused per-thread buffer. The date part is cached per thread, since the
+ * readings of one response mostly fall on the same day.
+ */
+final class LocalDateTimeFormat {
+
+    private static final ThreadLocal<Buffer> BUFFER = ThreadLocal.withInitial(Buffer::new);
+
+    private LocalDateTimeFormat() {
+    }
+
+    static void write(JsonGenerator gen, LocalDateTime value) {
+        int year = value.getYear();
+        if (year < 0 || year > 9999) {
+            gen.writeString(DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(value));
+            return;
+        }
+        Buffer buffer = BUFFER.get();
+        int length = buffer.format(value);
+        gen.writeString(buffer.chars, 0, length);
+    }
+
+    private static final class Buffer {
+
+        // yyyy-MM-ddTHH:mm:ss.nnnnnnnnn
+        private final char[] chars = new char[29];
+        private long cachedEpochDay = Long.MIN_VALUE;
+
+        int format(LocalDateTime value) {
+            long epochDay = value.toLocalDate().toEpochDay();
+            if (epochDay != cachedEpochDay) {
+                digits(value.getYear(), 0, 4);
+                chars[4] = '-';
+                digits(value.getMonthValue(), 5, 2);
+                chars[7] = '-';
+                digits(value.getDayOfMonth(), 8, 2);
+                chars[10] = 'T';
+                cachedEpochDay = epochDay;
+            }
+            digits(value.getHour(), 11, 2);
+            chars[13] = ':';
+            digits(value.getMinute(), 14, 2);
+            chars[16] = ':';
+            digits(value.getSecond(), 17, 2);
+            int nano = value.getNano();
+            if (nano == 0) {
+                return 19;
+            }
+            chars[19] = '.';
+            digits(nano, 20, 9);
+            int end = 29;
+            while (chars[end - 1] == '0') {
+                end--;
+            }
+            return end;
+        }
+
+        private void digits(int value, int offset, int width) {
+            for (int i = offset + width - 1; i >= offset; i--) {
+                chars[i] = (char) ('0' + value % 10);
+                value /= 10;
+            }
+        }
+    }
+}
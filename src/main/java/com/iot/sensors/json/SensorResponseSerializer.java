@@ -0,0 +1,91 @@
+package com.iot.sensors.json;
+
+import com.iot.sensors.dto.SensorResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.jackson.JacksonComponent;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.core.SerializableString;
+import tools.jackson.core.io.SerializedString;
+import tools.jackson.databind.SerializationContext;
+import tools.jackson.databind.ser.std.StdSerializer;
+
+import java.time.LocalDateTime;
+
+/**
+ * Hand-written serializer for {@link SensorResponse}, the element of every list endpoint.
+ * It writes pre-encoded property names in the order the default bean serializer uses
+ * (alphabetical) without reflective property access, and formats timestamps with
+ * {@link LocalDateTimeFormat}, so the output is byte-for-byte the same as before.
+ * <p>
+ * With {@code iot.json.omit-null-metrics=true}, missing temperature, humidity and pressure
+ * values are left out instead of being written as {@code null}, which shrinks responses for
+ * devices that report a single metric.
+ */
+@JacksonComponent
+public class SensorResponseSerializer extends StdSerializer<SensorResponse> {
+
+    private static final SerializableString CREATED_AT = new SerializedString("createdAt");
+    private static final SerializableString HUMIDITY = new SerializedString("humidity");
+    private static final SerializableString ID = new SerializedString("id");
+    private static final SerializableString LOCATION = new SerializedString("location");
+    private static final SerializableString MEASUREMENT_TIME = new SerializedString("measurementTime");
+    private static final SerializableString NAME = new SerializedString("name");
+    private static final SerializableString PRESSURE = new SerializedString("pressure");
+    private static final SerializableString TEMPERATURE = new SerializedString("temperature");
+    private static final SerializableString UPDATED_AT = new SerializedString("updatedAt");
+
+    private final boolean omitNullMetrics;
+
+    public SensorResponseSerializer(@Value("${iot.json.omit-null-metrics:false}") boolean omitNullMetrics) {
+        super(SensorResponse.class);
+        this.omitNullMetrics = omitNullMetrics;
+    }
+
+    @Override
+    public void serialize(SensorResponse value, JsonGenerator gen, SerializationContext context) {
+        gen.writeStartObject(value);
+        writeTime(gen, CREATED_AT, value.getCreatedAt());
+        writeMetric(gen, HUMIDITY, value.getHumidity());
+        gen.writeName(ID);
+        if (value.getId() != null) {
+            gen.writeNumber(value.getId());
+        } else {
+            gen.writeNull();
+        }
+        writeString(gen, LOCATION, value.getLocation());
+        writeTime(gen, MEASUREMENT_TIME, value.getMeasurementTime());
+        writeString(gen, NAME, value.getName());
+        writeMetric(gen, PRESSURE, value.getPressure());
+        writeMetric(gen, TEMPERATURE, value.getTemperature());
+        writeTime(gen, UPDATED_AT, value.getUpdatedAt());
+        gen.writeEndObject();
+    }
+
+    private void writeMetric(JsonGenerator gen, SerializableString name, Double value) {
+        if (value != null) {
+            gen.writeName(name);
+            gen.writeNumber(value);
+        } else if (!omitNullMetrics) {
+            gen.writeName(name);
+            gen.writeNull();
+        }
+    }
+
+    private static void writeString(JsonGenerator gen, SerializableString name, String value) {
+        gen.writeName(name);
+        if (value != null) {
+            gen.writeString(value);
+        } else {
+            gen.writeNull();
+        }
+    }
+
+    private static void writeTime(JsonGenerator gen, SerializableString name, LocalDateTime value) {
+        gen.writeName(name);
+        if (value != null) {
+            LocalDateTimeFormat.write(gen, value);
+        } else {
+            gen.writeNull();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.iot.sensors.model;
+
+import com.iot.sensors.dto.SensorReading;
+import com.iot.sensors.exception.InvalidRequestException;
+
+import java.util.Locale;
+
+/**
+ * Numeric readings carried by a {@link Sensor}. Each metric is optional on a reading.
+ */
+public enum Metric {
+
+    TEMPERATURE("temperature"),
+    HUMIDITY("humidity"),
+    PRESSURE("pressure");
+
+    private final String column;
+
+    Metric(String column) {
+        this.column = column;
+    }
+
+    public String getColumn() {
+        return column;
+    }
+
+    public Double valueOf(Sensor sensor) {
+        switch (this) {
+            case TEMPERATURE:
+                return sensor.getTemperature();
+            case HUMIDITY:
+                return sensor.getHumidity();
+            default:
+                return sensor.getPressure();
+        }
+    }
+
+    public Double valueOf(SensorReading reading) {
+        switch (this) {
+            case TEMPERATURE:
+                return reading.getTemperature();
+            case HUMIDITY:
+                return reading.getHumidity();
+            default:
+                return reading.getPressure();
+        }
+    }
+
+    public static Metric fromValue(String value) {
+        if (value != null) {
+            String normalized = value.trim().toLowerCase(Locale.ROOT);
+            for (Metric metric : values()) {
+                if (metric.column.equals(normalized)) {
+                    return metric;
+                }
+            }
+        }
+        throw new InvalidRequestException("Unknown metric: " + value
+                + " (expected temperature, humidity or pressure)");
+    }
+}
@@ -0,0 +1,235 @@
+package com.iot.sensors.repository;
+
+import com.iot.sensors.model.Sensor;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Bulk writer for readings that bypasses JPA: on PostgreSQL rows are streamed with
+ * {@code COPY ... FROM STDIN}, on other databases (H2) they are written with one JDBC batch
+ * insert. Used by the UDP ingest path and the {@code DatasetGenerator}.
+ * <p>
+ * No ids are read back and no entity callbacks run, so the caller sets the measurement and
+ * creation times before inserting.
+ */
+@Repository
+public class SensorBatchInserter {
+
+    private static final String COLUMNS = "name, location, temperature, humidity, pressure, measurement_time, created_at";
+    private static final String COPY_SQL = "COPY sensors (" + COLUMNS + ") FROM STDIN";
+    private static final String INSERT_SQL = "INSERT INTO sensors (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final DateTimeFormatter COPY_TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSSSSS");
+    private static final int COPY_BUFFER_CHARS = 64 * 1024;
+
+    /**
+     * Cursor over the rows to write; {@link #next()} advances to the next row and returns
+     * {@code false} once the rows are exhausted.
+     */
+    public interface Rows {
+
+        boolean next();
+
+        String getName();
+
+        String getLocation();
+
+        Double getTemperature();
+
+        Double getHumidity();
+
+        Double getPressure();
+
+        LocalDateTime getMeasurementTime();
+
+        default LocalDateTime getCreatedAt() {
+            return getMeasurementTime();
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public SensorBatchInserter(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    /**
+     * Writes the sensors on the connection of the current transaction.
+     */
+    public void insert(List<Sensor> sensors) {
+        if (sensors.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.execute((ConnectionCallback<Long>) connection ->
+                write(connection, new SensorRows(sensors), sensors.size()));
+    }
+
+    /**
+     * Writes up to {@code maxRows} rows with one COPY or one batch insert and returns the
+     * number written; 0 means the rows are exhausted.
+     */
+    public long write(Connection connection, Rows rows, int maxRows) throws SQLException {
+        return isPostgres(connection) ? copy(connection, rows, maxRows) : insertBatch(connection, rows, maxRows);
+    }
+
+    public boolean isPostgres(Connection connection) throws SQLException {
+        return "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName());
+    }
+
+    private long copy(Connection connection, Rows rows, int maxRows) throws SQLException {
+        if (!rows.next()) {
+            return 0;
+        }
+        StringBuilder buffer = new StringBuilder(COPY_BUFFER_CHARS + 256);
+        CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_SQL);
+        try {
+            int inBatch = 0;
+            do {
+                appendCopyText(buffer, rows.getName());
+                appendCopyText(buffer, rows.getLocation());
+                appendCopyValue(buffer, rows.getTemperature());
+                appendCopyValue(buffer, rows.getHumidity());
+                appendCopyValue(buffer, rows.getPressure());
+                buffer.append(COPY_TIMESTAMP.format(rows.getMeasurementTime())).append('\t')
+                        .append(COPY_TIMESTAMP.format(rows.getCreatedAt())).append('\n');
+                if (buffer.length() >= COPY_BUFFER_CHARS) {
+                    writeCopy(copyIn, buffer);
+                }
+            } while (++inBatch < maxRows && rows.next());
+            writeCopy(copyIn, buffer);
+            return copyIn.endCopy();
+        } finally {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+    }
+
+    private long insertBatch(Connection connection, Rows rows, int maxRows) throws SQLException {
+        if (!rows.next()) {
+            return 0;
+        }
+        try (PreparedStatement insert = connection.prepareStatement(INSERT_SQL)) {
+            int inBatch = 0;
+            do {
+                insert.setString(1, rows.getName());
+                insert.setString(2, rows.getLocation());
+                setDouble(insert, 3, rows.getTemperature());
+                setDouble(insert, 4, rows.getHumidity());
+                setDouble(insert, 5, rows.getPressure());
+                insert.setObject(6, rows.getMeasurementTime());
+                insert.setObject(7, rows.getCreatedAt());
+                insert.addBatch();
+            } while (++inBatch < maxRows && rows.next());
+            insert.executeBatch();
+            return inBatch;
+        }
+    }
+
+    /**
+     * Appends a text column escaped per the COPY text format, so device-supplied tabs,
+     * newlines and backslashes (including a literal {@code \N}) are stored as sent.
+     */
+    static void appendCopyText(StringBuilder buffer, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\':
+                    buffer.append("\\\\");
+                    break;
+                case '\t':
+                    buffer.append("\\t");
+                    break;
+                case '\n':
+                    buffer.append("\\n");
+                    break;
+                case '\r':
+                    buffer.append("\\r");
+                    break;
+                default:
+                    buffer.append(c);
+            }
+        }
+        buffer.append('\t');
+    }
+
+    private static void appendCopyValue(StringBuilder buffer, Double value) {
+        buffer.append(value != null ? value.toString() : "\\N").append('\t');
+    }
+
+    private static void writeCopy(CopyIn copyIn, StringBuilder buffer) throws SQLException {
+        byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+        copyIn.writeToCopy(bytes, 0, bytes.length);
+        buffer.setLength(0);
+    }
+
+    private static void setDouble(PreparedStatement statement, int index, Double value) throws SQLException {
+        if (value != null) {
+            statement.setDouble(index, value);
+        } else {
+            statement.setNull(index, Types.DOUBLE);
+        }
+    }
+
+    private static final class SensorRows implements Rows {
+
+        private final List<Sensor> sensors;
+        private int index = -1;
+
+        private SensorRows(List<Sensor> sensors) {
+            this.sensors = sensors;
+        }
+
+        @Override
+        public boolean next() {
+            return ++index < sensors.size();
+        }
+
+        @Override
+        public String getName() {
+            return sensors.get(index).getName();
+        }
+
+        @Override
+        public String getLocation() {
+            return sensors.get(index).getLocation();
+        }
+
+        @Override
+        public Double getTemperature() {
+            return sensors.get(index).getTemperature();
+        }
+
+        @Override
+        public Double getHumidity() {
+            return sensors.get(index).getHumidity();
+        }
+
+        @Override
+        public Double getPressure() {
+            return sensors.get(index).getPressure();
+        }
+
+        @Override
+        public LocalDateTime getMeasurementTime() {
+            return sensors.get(index).getMeasurementTime();
+        }
+
+        @Override
+        public LocalDateTime getCreatedAt() {
+            return sensors.get(index).getCreatedAt();
+        }
+    }
+}
@@ -1,15 +1,166 @@
 package com.iot.sensors.repository;
 
+import com.iot.sensors.dto.DeviceSummary;
+import com.iot.sensors.dto.ReadingKey;
+import com.iot.sensors.dto.SensorReading;
 import com.iot.sensors.model.Sensor;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface SensorRepository extends JpaRepository<Sensor, Long> {
-    
+public interface SensorRepository extends JpaRepository<Sensor, Long>, SensorRepositoryCustom {
+
     List<Sensor> findByLocation(String location);
-    
+
     List<Sensor> findByName(String name);
+
+    /**
+     * Distinct devices whose name matches a LIKE pattern (backslash escaped). Backed by the
+     * name prefix and trigram indexes on PostgreSQL and by the name index on H2.
+     */
+    @Query("select new com.iot.sensors.dto.DeviceSummary(s.name, s.location, count(s), max(s.measurementTime)) "
+            + "from Sensor s where s.name like :pattern escape '\\' "
+            + "group by s.name, s.location order by s.name, s.location")
+    Slice<DeviceSummary> searchDevicesByName(@Param("pattern") String pattern, Pageable pageable);
+
+    @Query("select new com.iot.sensors.dto.DeviceSummary(s.name, s.location, count(s), max(s.measurementTime)) "
+            + "from Sensor s where s.location like :pattern escape '\\' "
+            + "group by s.location, s.name order by s.location, s.name")
+    Slice<DeviceSummary> searchDevicesByLocation(@Param("pattern") String pattern, Pageable pageable);
+
+    @Query("select new com.iot.sensors.dto.SensorReading(s.id, s.name, s.location, s.measurementTime, "
+            + "s.temperature, s.humidity, s.pressure) "
+            + "from Sensor s where s.measurementTime >= :from and s.measurementTime < :to")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<SensorReading> streamReadingsBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query("select new com.iot.sensors.dto.SensorReading(s.id, s.name, s.location, s.measurementTime, "
+            + "s.temperature, s.humidity, s.pressure) "
+            + "from Sensor s where s.name = :name and s.measurementTime >= :from and s.measurementTime < :to "
+            + "order by s.measurementTime, s.id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<SensorReading> streamReadingsByNameBetween(@Param("name") String name, @Param("from") LocalDateTime from,
+                                                      @Param("to") LocalDateTime to);
+
+    @Query("select new com.iot.sensors.dto.SensorReading(s.id, s.name, s.location, s.measurementTime, "
+            + "s.temperature, s.humidity, s.pressure) "
+            + "from Sensor s where s.location = :location and s.measurementTime >= :from and s.measurementTime < :to")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<SensorReading> streamReadingsByLocationBetween(@Param("location") String location,
+                                                          @Param("from") LocalDateTime from,
+                                                          @Param("to") LocalDateTime to);
+
+    @Query("select new com.iot.sensors.dto.SensorReading(s.id, s.name, s.location, s.measurementTime, "
+            + "s.temperature, s.humidity, s.pressure) from Sensor s where s.id = :id")
+    Optional<SensorReading> findReadingById(@Param("id") Long id);
+
+    @Query("select distinct s.location from Sensor s "
+            + "where s.name = :name and s.measurementTime >= :from and s.measurementTime < :to")
+    List<String> findLocationsByNameBetween(@Param("name") String name, @Param("from") LocalDateTime from,
+                                            @Param("to") LocalDateTime to);
+
+    @Query("select distinct s.name from Sensor s "
+            + "where s.location = :location and s.measurementTime >= :from and s.measurementTime < :to")
+    List<String> findNamesByLocationBetween(@Param("location") String location, @Param("from") LocalDateTime from,
+                                            @Param("to") LocalDateTime to);
+
+    @Query("select new com.iot.sensors.dto.DeviceSummary(s.name, s.location, count(s), max(s.measurementTime)) "
+            + "from Sensor s where s.measurementTime >= :from and s.measurementTime < :to group by s.name, s.location")
+    List<DeviceSummary> findDevicesBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query("select new com.iot.sensors.dto.DeviceSummary(s.name, s.location, count(s), max(s.measurementTime)) "
+            + "from Sensor s where s.name = :name and s.measurementTime >= :from and s.measurementTime < :to "
+            + "group by s.name, s.location")
+    List<DeviceSummary> findDevicesByNameBetween(@Param("name") String name, @Param("from") LocalDateTime from,
+                                                 @Param("to") LocalDateTime to);
+
+    @Query("select min(s.measurementTime) from Sensor s")
+    LocalDateTime findOldestMeasurementTime();
+
+    /**
+     * Readings of one archive window, grouped by sensor and in time order within each sensor.
+     */
+    @Query("select new com.iot.sensors.dto.SensorReading(s.id, s.name, s.location, s.measurementTime, "
+            + "s.temperature, s.humidity, s.pressure) "
+            + "from Sensor s where s.measurementTime >= :from and s.measurementTime < :to "
+            + "order by s.name, s.location, s.measurementTime, s.id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<SensorReading> streamReadingsForArchive(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    /**
+     * Returns the next keyset chunk of one sensor's readings in {@code [after, to)}, in
+     * (measurement time, id) order, so each chunk is a range scan of the name and time index.
+     * The first chunk starts with {@code afterTime = from} and {@code afterId = 0}.
+     */
+    @Query("select new com.iot.sensors.dto.ReadingKey(s.id, s.measurementTime) from Sensor s "
+            + "where s.name = :name and s.measurementTime >= :afterTime and s.measurementTime < :to "
+            + "and (s.measurementTime > :afterTime or s.id > :afterId) order by s.measurementTime, s.id")
+    List<ReadingKey> findKeysByNameAfter(@Param("name") String name, @Param("afterTime") LocalDateTime afterTime,
+                                         @Param("afterId") Long afterId, @Param("to") LocalDateTime to, Limit limit);
+
+    @Modifying
+    @Query("update Sensor s set s.temperature = s.temperature + :offset, s.updatedAt = :updatedAt "
+            + "where s.id in :ids and s.temperature is not null")
+    int addToTemperature(@Param("ids") List<Long> ids, @Param("offset") double offset,
+                         @Param("updatedAt") LocalDateTime updatedAt);
+
+    @Modifying
+    @Query("update Sensor s set s.humidity = s.humidity + :offset, s.updatedAt = :updatedAt "
+            + "where s.id in :ids and s.humidity is not null")
+    int addToHumidity(@Param("ids") List<Long> ids, @Param("offset") double offset,
+                      @Param("updatedAt") LocalDateTime updatedAt);
+
+    @Modifying
+    @Query("update Sensor s set s.pressure = s.pressure + :offset, s.updatedAt = :updatedAt "
+            + "where s.id in :ids and s.pressure is not null")
+    int addToPressure(@Param("ids") List<Long> ids, @Param("offset") double offset,
+                      @Param("updatedAt") LocalDateTime updatedAt);
+
+    /**
+     * Returns the next keyset chunk of readings measured before {@code before}, in
+     * (measurement time, id) order, so each chunk is a range scan of the time index. The first
+     * chunk starts with {@code afterTime} at or before the oldest reading and {@code afterId = 0}.
+     */
+    @Query("select new com.iot.sensors.dto.SensorReading(s.id, s.name, s.location, s.measurementTime, "
+            + "s.temperature, s.humidity, s.pressure) from Sensor s "
+            + "where s.measurementTime >= :afterTime and s.measurementTime < :before "
+            + "and (s.measurementTime > :afterTime or s.id > :afterId) order by s.measurementTime, s.id")
+    List<SensorReading> findReadingsMeasuredBefore(@Param("afterTime") LocalDateTime afterTime,
+                                                   @Param("afterId") Long afterId,
+                                                   @Param("before") LocalDateTime before, Limit limit);
+
+    /**
+     * Same as {@link #findReadingsMeasuredBefore} for one location, a range scan of the
+     * location and time index.
+     */
+    @Query("select new com.iot.sensors.dto.SensorReading(s.id, s.name, s.location, s.measurementTime, "
+            + "s.temperature, s.humidity, s.pressure) from Sensor s "
+            + "where s.location = :location and s.measurementTime >= :afterTime and s.measurementTime < :before "
+            + "and (s.measurementTime > :afterTime or s.id > :afterId) order by s.measurementTime, s.id")
+    List<SensorReading> findReadingsByLocationMeasuredBefore(@Param("location") String location,
+                                                             @Param("afterTime") LocalDateTime afterTime,
+                                                             @Param("afterId") Long afterId,
+                                                             @Param("before") LocalDateTime before, Limit limit);
+
+    @Query("select new com.iot.sensors.dto.SensorReading(s.id, s.name, s.location, s.measurementTime, "
+            + "s.temperature, s.humidity, s.pressure) from Sensor s where s.id in :ids")
+    List<SensorReading> findReadingsByIds(@Param("ids") List<Long> ids);
+
+    @Modifying
+    @Query("delete from Sensor s where s.id in :ids")
+    int deleteSensorsByIds(@Param("ids") List<Long> ids);
 }
@@ -0,0 +1,27 @@
+package com.iot.sensors.repository;
+
+import com.iot.sensors.dto.SensorReading;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Queries of {@link SensorRepository} whose statement depends on the arguments or the database.
+ */
+public interface SensorRepositoryCustom {
+
+    /**
+     * Updates the supplied fields of one reading in a single statement, without loading it;
+     * only non-{@code null} arguments appear in the {@code SET} list. With a non-{@code null}
+     * {@code measuredFrom}, readings measured before it are left untouched.
+     */
+    int patchSensor(Long id, String name, String location, Double temperature, Double humidity, Double pressure,
+                    LocalDateTime updatedAt, LocalDateTime measuredFrom);
+
+    /**
+     * Deletes one reading in a single statement and returns its name, location and measurement
+     * time (metrics are not read back); empty when no row matched. With a non-{@code null}
+     * {@code measuredFrom}, readings measured before it are not deleted.
+     */
+    Optional<SensorReading> deleteSensorReturningKey(Long id, LocalDateTime measuredFrom);
+}
@@ -0,0 +1,85 @@
+package com.iot.sensors.repository;
+
+import com.iot.sensors.dto.SensorReading;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.hibernate.Session;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.StringJoiner;
+
+class SensorRepositoryCustomImpl implements SensorRepositoryCustom {
+
+    private static final String DELETE_WHERE = "DELETE FROM sensors WHERE id = ?";
+    private static final String MEASURED_FROM = " AND measurement_time >= ?";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Resolved on first use from the connection metadata
+    private volatile Boolean postgres;
+
+    @Override
+    public int patchSensor(Long id, String name, String location, Double temperature, Double humidity,
+                           Double pressure, LocalDateTime updatedAt, LocalDateTime measuredFrom) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        putIfSupplied(values, "name", name);
+        putIfSupplied(values, "location", location);
+        putIfSupplied(values, "temperature", temperature);
+        putIfSupplied(values, "humidity", humidity);
+        putIfSupplied(values, "pressure", pressure);
+        values.put("updatedAt", updatedAt);
+
+        String where = measuredFrom != null ? " where s.id = :id and s.measurementTime >= :measuredFrom"
+                : " where s.id = :id";
+        StringJoiner jpql = new StringJoiner(", ", "update Sensor s set ", where);
+        for (String field : values.keySet()) {
+            jpql.add("s." + field + " = :" + field);
+        }
+
+        Query update = entityManager.createQuery(jpql.toString());
+        values.forEach(update::setParameter);
+        if (measuredFrom != null) {
+            update.setParameter("measuredFrom", measuredFrom);
+        }
+        return update.setParameter("id", id).executeUpdate();
+    }
+
+    @Override
+    public Optional<SensorReading> deleteSensorReturningKey(Long id, LocalDateTime measuredFrom) {
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            if (postgres == null) {
+                postgres = "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName());
+            }
+            String delete = measuredFrom != null ? DELETE_WHERE + MEASURED_FROM : DELETE_WHERE;
+            // H2 has no RETURNING; its data change delta table gives the deleted row instead
+            String sql = postgres ? delete + " RETURNING name, location, measurement_time"
+                    : "SELECT name, location, measurement_time FROM OLD TABLE (" + delete + ")";
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                statement.setLong(1, id);
+                if (measuredFrom != null) {
+                    statement.setObject(2, measuredFrom);
+                }
+                try (ResultSet row = statement.executeQuery()) {
+                    if (!row.next()) {
+                        return Optional.empty();
+                    }
+                    return Optional.of(new SensorReading(id, row.getString(1), row.getString(2),
+                            row.getObject(3, LocalDateTime.class), null, null, null));
+                }
+            }
+        });
+    }
+
+    private static void putIfSupplied(Map<String, Object> values, String field, Object value) {
+        if (value != null) {
+            values.put(field, value);
+        }
+    }
+}
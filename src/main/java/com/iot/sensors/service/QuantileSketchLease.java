@@ -0,0 +1,133 @@
+package com.iot.sensors.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Enforces that a single instance serves quantile queries. {@link QuantileSketchService} keeps
+ * its sketches in memory and only sees the readings written through its own instance, so a
+ * second instance against the same database would answer with partial percentiles.
+ * <p>
+ * When {@code iot.stats.instance-lease.enabled=true}, the instance claims the single row of
+ * {@code quantile_sketch_lease} before it starts serving and startup fails while another
+ * instance holds an unexpired lease. The lease is renewed every
+ * {@code iot.stats.instance-lease.renew-ms} and released on shutdown; a crashed instance's
+ * lease expires after {@code iot.stats.instance-lease.ttl-seconds}. Expiry is compared with
+ * the application clock, so the TTL must cover clock skew between hosts.
+ */
+@Component
+@Lazy(false)
+public class QuantileSketchLease implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(QuantileSketchLease.class);
+
+    private static final String RENEW_SQL = "UPDATE quantile_sketch_lease SET owner = ?, expires_at = ? "
+            + "WHERE id = 1 AND (owner = ? OR expires_at < ?)";
+    private static final String INSERT_SQL = "INSERT INTO quantile_sketch_lease (id, owner, expires_at) VALUES (1, ?, ?)";
+    private static final String RELEASE_SQL = "DELETE FROM quantile_sketch_lease WHERE id = 1 AND owner = ?";
+    private static final String HOLDER_SQL = "SELECT owner, expires_at FROM quantile_sketch_lease WHERE id = 1";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final long ttlSeconds;
+    private final String owner;
+    private volatile boolean held;
+
+    public QuantileSketchLease(DataSource dataSource,
+                               @Value("${iot.stats.instance-lease.enabled:false}") boolean enabled,
+                               @Value("${iot.stats.instance-lease.ttl-seconds:30}") long ttlSeconds) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.enabled = enabled;
+        this.ttlSeconds = ttlSeconds;
+        this.owner = hostName() + "/" + UUID.randomUUID();
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (enabled) {
+            acquire();
+        }
+    }
+
+    /**
+     * Claims the lease, or takes over an expired one.
+     *
+     * @throws IllegalStateException if another instance holds an unexpired lease
+     */
+    void acquire() {
+        if (!tryAcquire()) {
+            List<String> holders = jdbcTemplate.query(HOLDER_SQL, (rs, row) ->
+                    rs.getString("owner") + " until " + rs.getTimestamp("expires_at").toLocalDateTime());
+            throw new IllegalStateException("Quantile sketches are kept in memory and need a single instance, "
+                    + "but the lease is held by " + (holders.isEmpty() ? "another instance" : holders.get(0))
+                    + "; stop it or wait for its lease to expire");
+        }
+        held = true;
+        log.info("Acquired the quantile sketch lease as {}", owner);
+    }
+
+    private boolean tryAcquire() {
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp expiresAt = Timestamp.valueOf(now.plusSeconds(ttlSeconds));
+        if (jdbcTemplate.update(RENEW_SQL, owner, expiresAt, owner, Timestamp.valueOf(now)) == 1) {
+            return true;
+        }
+        try {
+            return jdbcTemplate.update(INSERT_SQL, owner, expiresAt) == 1;
+        } catch (DuplicateKeyException ex) {
+            return false;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${iot.stats.instance-lease.renew-ms:10000}")
+    public void renew() {
+        if (!held) {
+            return;
+        }
+        try {
+            if (!tryAcquire()) {
+                log.error("Lost the quantile sketch lease to another instance; percentiles of both instances are partial");
+            }
+        } catch (DataAccessException ex) {
+            log.warn("Could not renew the quantile sketch lease: {}", ex.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void release() {
+        if (!held) {
+            return;
+        }
+        held = false;
+        try {
+            jdbcTemplate.update(RELEASE_SQL, owner);
+        } catch (DataAccessException ex) {
+            log.warn("Could not release the quantile sketch lease: {}", ex.getMessage());
+        }
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException ex) {
+            return "unknown";
+        }
+    }
+}
@@ -0,0 +1,478 @@
+package com.iot.sensors.service;
+
+import com.iot.sensors.dto.QuantileResponse;
+import com.iot.sensors.dto.SensorReading;
+import com.iot.sensors.exception.InvalidRequestException;
+import com.iot.sensors.model.Metric;
+import com.iot.sensors.model.Sensor;
+import com.iot.sensors.repository.SensorRepository;
+import com.iot.sensors.stats.TDigest;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+/**
+ * Maintains mergeable quantile sketches ({@link TDigest}) per sensor name and per location,
+ * one per metric and time bucket. Sketches are updated on ingest and merged on demand over
+ * the requested range, so percentile queries never scan the {@code sensors} table.
+ * <p>
+ * Sketches are indexed by series (dimension, key and metric), each series holding its
+ * buckets in time order, so a query only visits the buckets of its own range.
+ * <p>
+ * A sketch cannot forget a value, so when existing readings change (update, patch,
+ * recalibration, purge) the affected buckets are rebuilt from the table with
+ * {@link #refresh}. Rebuilds run after the change commits on a single background thread,
+ * which also performs the startup rebuild, so they never overlap each other. Readings
+ * ingested into a bucket while it is being rebuilt may be missed or counted twice.
+ * <p>
+ * Sketches are not shared between instances: each one only records the readings written
+ * through it, so percentiles are correct with a single instance only, which
+ * {@link QuantileSketchLease} enforces.
+ */
+@Service
+public class QuantileSketchService {
+
+    private static final Logger log = LoggerFactory.getLogger(QuantileSketchService.class);
+
+    public enum Dimension {
+        SENSOR, LOCATION
+    }
+
+    private record SeriesKey(Dimension dimension, String key, Metric metric) {
+    }
+
+    /**
+     * Resolves the sketch a value is added to, or {@code null} to skip the value.
+     */
+    @FunctionalInterface
+    private interface SketchLookup {
+        TDigest sketch(SeriesKey series, long bucket);
+    }
+
+    private final Map<SeriesKey, ConcurrentNavigableMap<Long, TDigest>> series = new ConcurrentHashMap<>();
+    private final AtomicLong latestBucket = new AtomicLong(Long.MIN_VALUE);
+
+    private final SensorRepository sensorRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final long bucketSeconds;
+    private final long retentionSeconds;
+    private final double compression;
+    private final boolean rebuildOnStartup;
+    private final long rebuildDelaySeconds;
+    private final AtomicReference<LocalDateTime> replayCutoff = new AtomicReference<>();
+    // Only touched on the rebuild thread: refreshes wait for the startup rebuild, which would
+    // otherwise replay readings into buckets they already rebuilt
+    private boolean startupRebuildPending;
+    private final List<Runnable> deferredRefreshes = new ArrayList<>();
+    private final ScheduledExecutorService rebuildExecutor = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "quantile-sketch-rebuild");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public QuantileSketchService(SensorRepository sensorRepository,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${iot.stats.bucket-minutes:60}") long bucketMinutes,
+                                 @Value("${iot.stats.retention-days:7}") long retentionDays,
+                                 @Value("${iot.stats.compression:100}") double compression,
+                                 @Value("${iot.stats.rebuild-on-startup:true}") boolean rebuildOnStartup,
+                                 @Value("${iot.stats.rebuild-delay-seconds:0}") long rebuildDelaySeconds) {
+        this.sensorRepository = sensorRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.bucketSeconds = bucketMinutes * 60;
+        this.retentionSeconds = retentionDays * 24 * 3600;
+        this.compression = compression;
+        this.rebuildOnStartup = rebuildOnStartup;
+        this.rebuildDelaySeconds = rebuildDelaySeconds;
+        this.startupRebuildPending = rebuildOnStartup;
+    }
+
+    public void record(Sensor sensor) {
+        replayCutoff.compareAndSet(null, sensor.getMeasurementTime());
+        record(sensor.getName(), sensor.getLocation(), sensor.getMeasurementTime(),
+                sensor.getTemperature(), sensor.getHumidity(), sensor.getPressure(), this::sketch);
+    }
+
+    private void record(String name, String location, LocalDateTime measurementTime,
+                        Double temperature, Double humidity, Double pressure, SketchLookup sketches) {
+        long bucket = bucketStart(measurementTime);
+        if (bucket > latestBucket.get() && latestBucket.getAndAccumulate(bucket, Math::max) < bucket) {
+            evictBefore(bucket - retentionSeconds);
+        }
+        recordValue(Metric.TEMPERATURE, temperature, name, location, bucket, sketches);
+        recordValue(Metric.HUMIDITY, humidity, name, location, bucket, sketches);
+        recordValue(Metric.PRESSURE, pressure, name, location, bucket, sketches);
+    }
+
+    private void record(SensorReading reading, SketchLookup sketches) {
+        record(reading.getName(), reading.getLocation(), reading.getMeasurementTime(),
+                reading.getTemperature(), reading.getHumidity(), reading.getPressure(), sketches);
+    }
+
+    private static void recordValue(Metric metric, Double value, String name, String location, long bucket,
+                                    SketchLookup sketches) {
+        if (value == null) {
+            return;
+        }
+        TDigest sensor = sketches.sketch(new SeriesKey(Dimension.SENSOR, name, metric), bucket);
+        if (sensor != null) {
+            sensor.add(value);
+        }
+        TDigest place = sketches.sketch(new SeriesKey(Dimension.LOCATION, location, metric), bucket);
+        if (place != null) {
+            place.add(value);
+        }
+    }
+
+    private TDigest sketch(SeriesKey key, long bucket) {
+        NavigableMap<Long, TDigest> buckets = series.get(key);
+        TDigest digest = buckets != null ? buckets.get(bucket) : null;
+        if (digest != null) {
+            return digest;
+        }
+        // Created under the series lock, so eviction cannot drop a series that is being written
+        TDigest[] created = new TDigest[1];
+        series.compute(key, (k, existing) -> {
+            ConcurrentNavigableMap<Long, TDigest> target = existing != null ? existing : new ConcurrentSkipListMap<>();
+            created[0] = target.computeIfAbsent(bucket, b -> new TDigest(compression));
+            return target;
+        });
+        return created[0];
+    }
+
+    /**
+     * Merges every bucket overlapping {@code [from, to)} for the given key and returns the
+     * requested quantiles. Bucket granularity means the range is widened to whole buckets.
+     */
+    public QuantileResponse quantiles(Dimension dimension, String key, Metric metric,
+                                      LocalDateTime from, LocalDateTime to, List<Double> quantiles) {
+        if (!from.isBefore(to)) {
+            throw new InvalidRequestException("'from' must be before 'to'");
+        }
+        for (Double q : quantiles) {
+            if (q == null || !(q >= 0.0 && q <= 1.0)) {
+                throw new InvalidRequestException("Quantiles must be between 0 and 1: " + q);
+            }
+        }
+        long firstBucket = bucketStart(from);
+        long end = to.toEpochSecond(ZoneOffset.UTC);
+        TDigest merged = new TDigest(compression);
+        NavigableMap<Long, TDigest> buckets = series.get(new SeriesKey(dimension, key, metric));
+        if (buckets != null) {
+            buckets.subMap(firstBucket, true, end, false).values().forEach(merged::add);
+        }
+
+        Map<String, Double> values = new LinkedHashMap<>();
+        for (Double q : quantiles) {
+            values.put("p" + formatQuantile(q), merged.size() == 0 ? null : merged.quantile(q));
+        }
+        return new QuantileResponse(dimension.name().toLowerCase(Locale.ROOT), key, metric.getColumn(), from, to,
+                merged.size(), merged.size() == 0 ? null : merged.getMin(),
+                merged.size() == 0 ? null : merged.getMax(), values);
+    }
+
+    /**
+     * Start of the oldest bucket that is kept, or {@code null} while no reading was recorded.
+     */
+    public LocalDateTime getWindowStart() {
+        long latest = latestBucket.get();
+        return latest == Long.MIN_VALUE ? null
+                : LocalDateTime.ofEpochSecond(latest - retentionSeconds, 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * Rebuilds the buckets overlapping {@code [from, to]} of the given sensors and locations
+     * once the current transaction commits. A {@code null} {@code from} means the start of the
+     * window.
+     */
+    public void refresh(Collection<String> names, Collection<String> locations, LocalDateTime from,
+                        LocalDateTime to) {
+        Set<String> sensorKeys = new LinkedHashSet<>(names);
+        Set<String> locationKeys = new LinkedHashSet<>(locations);
+        afterCommit(() -> {
+            for (String name : sensorKeys) {
+                rebuildSeries(Dimension.SENSOR, name, from, to);
+            }
+            for (String location : locationKeys) {
+                rebuildSeries(Dimension.LOCATION, location, from, to);
+            }
+        });
+    }
+
+    /**
+     * Rebuilds the buckets overlapping {@code [from, to]} of one sensor and of every location it
+     * reported from in that range, for changes such as a recalibration.
+     */
+    public void refreshSensor(String name, LocalDateTime from, LocalDateTime to) {
+        afterCommit(() -> {
+            rebuildSeries(Dimension.SENSOR, name, from, to);
+            long[] buckets = bucketRange(from, to);
+            if (buckets == null) {
+                return;
+            }
+            List<String> locations = readOnlyTransaction.execute(status -> sensorRepository
+                    .findLocationsByNameBetween(name, toTime(buckets[0]), toTime(buckets[1] + bucketSeconds)));
+            for (String location : locations) {
+                rebuildSeries(Dimension.LOCATION, location, from, to);
+            }
+        });
+    }
+
+    /**
+     * Rebuilds the buckets of a reading changed in place. Its current key is read back when the
+     * rebuild runs; {@code previous} is the state before the change, needed only when the name
+     * or location changed.
+     */
+    public void refreshReading(Long id, SensorReading previous) {
+        afterCommit(() -> {
+            SensorReading reading = readOnlyTransaction.execute(status ->
+                    sensorRepository.findReadingById(id).orElse(null));
+            Set<String> names = new LinkedHashSet<>();
+            Set<String> locations = new LinkedHashSet<>();
+            for (SensorReading key : new SensorReading[]{previous, reading}) {
+                if (key != null) {
+                    names.add(key.getName());
+                    locations.add(key.getLocation());
+                }
+            }
+            LocalDateTime time = reading != null ? reading.getMeasurementTime()
+                    : previous != null ? previous.getMeasurementTime() : null;
+            if (time == null) {
+                return;
+            }
+            names.forEach(name -> rebuildSeries(Dimension.SENSOR, name, time, time));
+            locations.forEach(location -> rebuildSeries(Dimension.LOCATION, location, time, time));
+        });
+    }
+
+    /**
+     * Rebuilds every series over the buckets overlapping {@code [from, to]}, for bulk deletes
+     * that span many sensors. A {@code null} {@code from} means the start of the window.
+     */
+    public void refreshAll(LocalDateTime from, LocalDateTime to) {
+        afterCommit(() -> {
+            long[] buckets = bucketRange(from, to);
+            if (buckets == null) {
+                return;
+            }
+            Map<SeriesKey, NavigableMap<Long, TDigest>> rebuilt = new HashMap<>();
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<SensorReading> readings = sensorRepository.streamReadingsBetween(
+                        toTime(buckets[0]), toTime(buckets[1] + bucketSeconds))) {
+                    readings.forEach(reading -> record(reading, (key, bucket) -> rebuiltSketch(rebuilt, key, bucket)));
+                }
+            });
+            Set<SeriesKey> keys = new LinkedHashSet<>(series.keySet());
+            keys.addAll(rebuilt.keySet());
+            for (SeriesKey key : keys) {
+                replace(key, rebuilt.get(key), buckets[0], buckets[1]);
+            }
+            log.debug("Rebuilt quantile sketches of {} series between {} and {}",
+                    keys.size(), toTime(buckets[0]), toTime(buckets[1]));
+        });
+    }
+
+    private void rebuildSeries(Dimension dimension, String key, LocalDateTime from, LocalDateTime to) {
+        long[] buckets = bucketRange(from, to);
+        if (buckets == null) {
+            return;
+        }
+        LocalDateTime start = toTime(buckets[0]);
+        LocalDateTime end = toTime(buckets[1] + bucketSeconds);
+        Map<SeriesKey, NavigableMap<Long, TDigest>> rebuilt = new HashMap<>();
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<SensorReading> readings = dimension == Dimension.SENSOR
+                    ? sensorRepository.streamReadingsByNameBetween(key, start, end)
+                    : sensorRepository.streamReadingsByLocationBetween(key, start, end)) {
+                readings.forEach(reading -> record(reading, (seriesKey, bucket) ->
+                        seriesKey.dimension() == dimension ? rebuiltSketch(rebuilt, seriesKey, bucket) : null));
+            }
+        });
+        for (Metric metric : Metric.values()) {
+            SeriesKey seriesKey = new SeriesKey(dimension, key, metric);
+            replace(seriesKey, rebuilt.get(seriesKey), buckets[0], buckets[1]);
+        }
+    }
+
+    private TDigest rebuiltSketch(Map<SeriesKey, NavigableMap<Long, TDigest>> rebuilt, SeriesKey key, long bucket) {
+        return rebuilt.computeIfAbsent(key, k -> new TreeMap<>()).computeIfAbsent(bucket, b -> new TDigest(compression));
+    }
+
+    /**
+     * Swaps the buckets {@code [firstBucket, lastBucket]} of one series for rebuilt ones. New
+     * buckets are put before stale ones are removed, so concurrent queries see either version
+     * of each bucket.
+     */
+    private void replace(SeriesKey key, NavigableMap<Long, TDigest> rebuilt, long firstBucket, long lastBucket) {
+        series.compute(key, (k, existing) -> {
+            if (existing == null && rebuilt == null) {
+                return null;
+            }
+            ConcurrentNavigableMap<Long, TDigest> target = existing != null ? existing : new ConcurrentSkipListMap<>();
+            if (rebuilt != null) {
+                target.putAll(rebuilt);
+            }
+            target.subMap(firstBucket, true, lastBucket, true).keySet()
+                    .removeIf(bucket -> rebuilt == null || !rebuilt.containsKey(bucket));
+            return target.isEmpty() ? null : target;
+        });
+    }
+
+    /**
+     * First and last bucket of {@code [from, to]} clipped to the window, or {@code null} when
+     * the range lies outside it.
+     */
+    private long[] bucketRange(LocalDateTime from, LocalDateTime to) {
+        long latest = latestBucket.get();
+        if (latest == Long.MIN_VALUE) {
+            return null;
+        }
+        long windowStart = latest - retentionSeconds;
+        long first = from != null ? Math.max(bucketStart(from), windowStart) : windowStart;
+        long last = Math.min(bucketStart(to), latest);
+        return first <= last ? new long[]{first, last} : null;
+    }
+
+    private void afterCommit(Runnable rebuild) {
+        Runnable submit = () -> rebuildExecutor.execute(() -> {
+            if (startupRebuildPending) {
+                deferredRefreshes.add(rebuild);
+            } else {
+                runRefresh(rebuild);
+            }
+        });
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submit.run();
+                }
+            });
+        } else {
+            submit.run();
+        }
+    }
+
+    private static void runRefresh(Runnable rebuild) {
+        try {
+            rebuild.run();
+        } catch (RuntimeException ex) {
+            log.warn("Could not rebuild quantile sketches: {}", ex.getMessage());
+        }
+    }
+
+    /**
+     * Waits until every rebuild submitted so far has run.
+     */
+    void awaitRebuilds() throws InterruptedException, ExecutionException {
+        rebuildExecutor.submit(() -> { }).get();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    /**
+     * Starts the startup rebuild once the application is ready to serve traffic, after
+     * {@code iot.stats.rebuild-delay-seconds}. Until it completes, percentiles only cover
+     * readings ingested since startup.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        if (rebuildOnStartup) {
+            rebuildExecutor.schedule(this::rebuild, rebuildDelaySeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Replays readings inside the retention window that predate the first reading recorded
+     * on ingest, so no reading is counted twice, then runs the refreshes that waited for it.
+     */
+    void rebuild() {
+        try {
+            replay();
+        } finally {
+            startupRebuildPending = false;
+            deferredRefreshes.forEach(QuantileSketchService::runRefresh);
+            deferredRefreshes.clear();
+        }
+    }
+
+    private void replay() {
+        replayCutoff.compareAndSet(null, LocalDateTime.now());
+        LocalDateTime cutoff = replayCutoff.get();
+        LocalDateTime from = cutoff.minusSeconds(retentionSeconds);
+        try {
+            Long replayed = readOnlyTransaction.execute(status -> {
+                long rows = 0;
+                try (Stream<SensorReading> readings = sensorRepository.streamReadingsBetween(from, cutoff)) {
+                    for (SensorReading reading : (Iterable<SensorReading>) readings::iterator) {
+                        record(reading, this::sketch);
+                        rows++;
+                    }
+                }
+                return rows;
+            });
+            log.info("Rebuilt quantile sketches from {} readings since {}", replayed, from);
+        } catch (RuntimeException ex) {
+            log.warn("Could not rebuild quantile sketches: {}", ex.getMessage());
+        }
+    }
+
+    private void evictBefore(long bucketLimit) {
+        for (SeriesKey key : series.keySet()) {
+            series.computeIfPresent(key, (k, buckets) -> {
+                buckets.headMap(bucketLimit).clear();
+                return buckets.isEmpty() ? null : buckets;
+            });
+        }
+    }
+
+    private long bucketStart(LocalDateTime time) {
+        long epochSecond = time.toEpochSecond(ZoneOffset.UTC);
+        return Math.floorDiv(epochSecond, bucketSeconds) * bucketSeconds;
+    }
+
+    private static LocalDateTime toTime(long epochSecond) {
+        return LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+    }
+
+    private static String formatQuantile(double q) {
+        return BigDecimal.valueOf(q).movePointRight(2).stripTrailingZeros().toPlainString();
+    }
+}
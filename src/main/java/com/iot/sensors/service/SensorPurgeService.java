@@ -0,0 +1,304 @@
+package com.iot.sensors.service;
+
+import com.iot.sensors.archive.SegmentArchive;
+import com.iot.sensors.dto.PurgeResponse;
+import com.iot.sensors.dto.SensorReading;
+import com.iot.sensors.exception.InvalidRequestException;
+import com.iot.sensors.exception.PurgeInProgressException;
+import com.iot.sensors.repository.SensorRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+/**
+ * Deletes readings in bounded keyset chunks. Each chunk runs in its own short transaction
+ * (one key lookup on the time index and one delete by id), followed by a configurable pause,
+ * so a purge of millions of rows never holds long locks or starves ingest of pool connections.
+ * When the archive is enabled, archived readings of the purged range are deleted as well.
+ * <p>
+ * Only one purge runs at a time. Purges requested through the API run on a background thread
+ * ({@link #startPurge}); scheduled jobs run them on their own thread ({@link #purge}). The
+ * progress of the current or last purge is available through {@link #getStatus()}.
+ */
+@Service
+public class SensorPurgeService {
+
+    private static final Logger log = LoggerFactory.getLogger(SensorPurgeService.class);
+
+    private final SensorRepository sensorRepository;
+    private final QuantileSketchService quantileSketchService;
+    private final ObjectProvider<SegmentArchive> segmentArchive;
+    private final TransactionTemplate chunkTransaction;
+    private final int chunkSize;
+    private final long pauseMillis;
+    private final AtomicReference<PurgeProgress> current = new AtomicReference<>();
+    private final ExecutorService purgeExecutor = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "sensor-purge");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public SensorPurgeService(SensorRepository sensorRepository,
+                              QuantileSketchService quantileSketchService,
+                              ObjectProvider<SegmentArchive> segmentArchive,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${iot.purge.chunk-size:1000}") int chunkSize,
+                              @Value("${iot.purge.pause-ms:50}") long pauseMillis) {
+        this.sensorRepository = sensorRepository;
+        this.quantileSketchService = quantileSketchService;
+        this.segmentArchive = segmentArchive;
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.pauseMillis = pauseMillis;
+    }
+
+    /**
+     * Deletes every reading measured before {@code before}, optionally only for one location,
+     * on the calling thread.
+     *
+     * @throws PurgeInProgressException if another purge is already running
+     */
+    public PurgeResponse purge(LocalDateTime before, String location, String trigger) {
+        PurgeProgress progress = claim(before, location, trigger);
+        run(progress, () -> deleteRange(progress));
+        return progress.toResponse();
+    }
+
+    /**
+     * Deletes the given readings, all measured before {@code before}, by id on the calling
+     * thread; readings that are no longer in the table are skipped. Used to delete rows that
+     * were copied elsewhere, so rows written since the copy are never deleted.
+     *
+     * @throws PurgeInProgressException if another purge is already running
+     */
+    public PurgeResponse purgeReadings(LocalDateTime before, Stream<SensorReading> readings, String trigger) {
+        PurgeProgress progress = claim(before, null, trigger);
+        run(progress, () -> deleteReadings(readings.iterator(), progress));
+        return progress.toResponse();
+    }
+
+    /**
+     * Starts a purge on the background thread and returns its initial progress; follow it
+     * with {@link #getStatus()}.
+     *
+     * @throws PurgeInProgressException if another purge is already running
+     */
+    public PurgeResponse startPurge(LocalDateTime before, String location, String trigger) {
+        PurgeProgress progress = claim(before, location, trigger);
+        try {
+            purgeExecutor.execute(() -> {
+                try {
+                    run(progress, () -> deleteRange(progress));
+                } catch (RuntimeException ex) {
+                    log.error("Purge ({}) failed after {} rows: {}", trigger, progress.deleted, ex.getMessage(), ex);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            progress.finish(ex);
+            throw ex;
+        }
+        return progress.toResponse();
+    }
+
+    public PurgeResponse getStatus() {
+        PurgeProgress progress = current.get();
+        return progress != null ? progress.toResponse() : null;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        purgeExecutor.shutdownNow();
+    }
+
+    private PurgeProgress claim(LocalDateTime before, String location, String trigger) {
+        if (before == null) {
+            throw new InvalidRequestException("'before' is required");
+        }
+        PurgeProgress progress = new PurgeProgress(trigger, before, location);
+        PurgeProgress previous = current.get();
+        if ((previous != null && previous.running) || !current.compareAndSet(previous, progress)) {
+            throw new PurgeInProgressException();
+        }
+        return progress;
+    }
+
+    private void run(PurgeProgress progress, Runnable deletion) {
+        log.info("Purge ({}) started: before={}, location={}", progress.trigger, progress.before, progress.location);
+        List<String> sketchedNames = List.of();
+        RuntimeException failure = null;
+        try {
+            sketchedNames = sketchedNamesAt(progress.location, progress.before);
+            deletion.run();
+        } catch (RuntimeException ex) {
+            failure = ex;
+            throw ex;
+        } finally {
+            if (progress.deleted > 0) {
+                refreshSketches(progress, sketchedNames);
+            }
+            progress.finish(failure);
+        }
+        log.info("Purge ({}) finished: {} rows in {} chunks, {} ms",
+                progress.trigger, progress.deleted, progress.chunks, progress.durationMillis());
+    }
+
+    /**
+     * Deletes the archived readings of the range with a tombstone, then the rows of the table.
+     */
+    private void deleteRange(PurgeProgress progress) {
+        SegmentArchive archive = segmentArchive.getIfAvailable();
+        if (archive != null && archive.getWatermark() != null) {
+            archive.delete(progress.before, progress.location);
+        }
+        deleteChunks(progress);
+    }
+
+    private void deleteChunks(PurgeProgress progress) {
+        LocalDateTime afterTime = sensorRepository.findOldestMeasurementTime();
+        long afterId = 0;
+        while (afterTime != null) {
+            LocalDateTime chunkAfterTime = afterTime;
+            long chunkAfterId = afterId;
+            SensorReading last = chunkTransaction.execute(status -> deleteChunk(chunkAfterTime, chunkAfterId,
+                    progress.before, progress.location, progress));
+            if (last == null) {
+                break;
+            }
+            afterTime = last.getMeasurementTime();
+            afterId = last.getId();
+            if (progress.chunks % 100 == 0) {
+                log.info("Purge ({}) progress: {} rows in {} chunks",
+                        progress.trigger, progress.deleted, progress.chunks);
+            }
+            pause();
+        }
+    }
+
+    private void deleteReadings(Iterator<SensorReading> readings, PurgeProgress progress) {
+        List<Long> ids = new ArrayList<>(chunkSize);
+        while (readings.hasNext()) {
+            ids.add(readings.next().getId());
+            if (ids.size() == chunkSize || !readings.hasNext()) {
+                List<Long> chunk = List.copyOf(ids);
+                ids.clear();
+                chunkTransaction.executeWithoutResult(status -> {
+                    List<SensorReading> existing = sensorRepository.findReadingsByIds(chunk);
+                    if (!existing.isEmpty()) {
+                        deleteChunk(existing, progress);
+                    }
+                });
+                pause();
+            }
+        }
+    }
+
+    private void refreshSketches(PurgeProgress progress, List<String> sketchedNames) {
+        if (progress.location == null) {
+            quantileSketchService.refreshAll(null, progress.before);
+        } else {
+            quantileSketchService.refresh(sketchedNames, List.of(progress.location), null, progress.before);
+        }
+    }
+
+    /**
+     * Sensors that reported from {@code location} inside the quantile sketch window, whose
+     * sketches must be rebuilt after a location purge. Read before the rows are deleted.
+     */
+    private List<String> sketchedNamesAt(String location, LocalDateTime before) {
+        LocalDateTime windowStart = quantileSketchService.getWindowStart();
+        if (location == null || windowStart == null || !windowStart.isBefore(before)) {
+            return List.of();
+        }
+        return sensorRepository.findNamesByLocationBetween(location, windowStart, before);
+    }
+
+    private SensorReading deleteChunk(LocalDateTime afterTime, long afterId, LocalDateTime before, String location,
+                                      PurgeProgress progress) {
+        List<SensorReading> readings = location == null
+                ? sensorRepository.findReadingsMeasuredBefore(afterTime, afterId, before, Limit.of(chunkSize))
+                : sensorRepository.findReadingsByLocationMeasuredBefore(location, afterTime, afterId, before,
+                        Limit.of(chunkSize));
+        if (readings.isEmpty()) {
+            return null;
+        }
+        deleteChunk(readings, progress);
+        return readings.get(readings.size() - 1);
+    }
+
+    private void deleteChunk(List<SensorReading> readings, PurgeProgress progress) {
+        List<Long> ids = new ArrayList<>(readings.size());
+        for (SensorReading reading : readings) {
+            ids.add(reading.getId());
+        }
+        progress.chunkDone(sensorRepository.deleteSensorsByIds(ids));
+    }
+
+    private void pause() {
+        if (pauseMillis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(pauseMillis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Purge interrupted", ex);
+        }
+    }
+
+    private static final class PurgeProgress {
+
+        private final String trigger;
+        private final LocalDateTime before;
+        private final String location;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private volatile LocalDateTime finishedAt;
+        private volatile boolean running = true;
+        private volatile long deleted;
+        private volatile long chunks;
+        private volatile String error;
+
+        private PurgeProgress(String trigger, LocalDateTime before, String location) {
+            this.trigger = trigger;
+            this.before = before;
+            this.location = location;
+        }
+
+        private void chunkDone(int rows) {
+            deleted += rows;
+            chunks++;
+        }
+
+        private void finish(RuntimeException failure) {
+            error = failure != null ? failure.getMessage() : null;
+            finishedAt = LocalDateTime.now();
+            running = false;
+        }
+
+        private long durationMillis() {
+            LocalDateTime end = finishedAt != null ? finishedAt : LocalDateTime.now();
+            return Duration.between(startedAt, end).toMillis();
+        }
+
+        private PurgeResponse toResponse() {
+            return new PurgeResponse(trigger, before, location, running, deleted, chunks,
+                    startedAt, finishedAt, durationMillis(), error);
+        }
+    }
+}
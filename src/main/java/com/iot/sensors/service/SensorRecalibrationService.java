@@ -0,0 +1,176 @@
+package com.iot.sensors.service;
+
+import com.iot.sensors.archive.SegmentArchive;
+import com.iot.sensors.dto.ReadingKey;
+import com.iot.sensors.dto.RecalibrationResponse;
+import com.iot.sensors.exception.InvalidRequestException;
+import com.iot.sensors.exception.RecalibrationFailedException;
+import com.iot.sensors.model.Metric;
+import com.iot.sensors.repository.SensorRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Applies a constant correction to one metric of one sensor over a time range, for example
+ * after a sensor is found to have been miscalibrated. Rows are updated in bounded keyset
+ * chunks, each one set-based {@code UPDATE} in its own short transaction followed by a
+ * configurable pause, like {@link SensorPurgeService}. Readings without a value for the metric
+ * are left untouched; corrected readings get a new {@code updatedAt}.
+ * <p>
+ * Archived readings are immutable, so the range must not start before the archive watermark.
+ * A failure keeps the committed chunks and reports the last key written, from which the
+ * recalibration is resumed.
+ */
+@Service
+public class SensorRecalibrationService {
+
+    private static final Logger log = LoggerFactory.getLogger(SensorRecalibrationService.class);
+
+    private final SensorRepository sensorRepository;
+    private final QuantileSketchService quantileSketchService;
+    private final ObjectProvider<SegmentArchive> segmentArchive;
+    private final TransactionTemplate chunkTransaction;
+    private final int chunkSize;
+    private final long pauseMillis;
+
+    public SensorRecalibrationService(SensorRepository sensorRepository,
+                                      QuantileSketchService quantileSketchService,
+                                      ObjectProvider<SegmentArchive> segmentArchive,
+                                      PlatformTransactionManager transactionManager,
+                                      @Value("${iot.recalibration.chunk-size:1000}") int chunkSize,
+                                      @Value("${iot.recalibration.pause-ms:50}") long pauseMillis) {
+        this.sensorRepository = sensorRepository;
+        this.quantileSketchService = quantileSketchService;
+        this.segmentArchive = segmentArchive;
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.pauseMillis = pauseMillis;
+    }
+
+    /**
+     * Adds {@code offset} to {@code metric} of every reading of sensor {@code name} measured in
+     * {@code [from, to)}.
+     */
+    public RecalibrationResponse recalibrate(String name, Metric metric, double offset,
+                                             LocalDateTime from, LocalDateTime to) {
+        return recalibrate(name, metric, offset, from, to, null, null);
+    }
+
+    /**
+     * Like {@link #recalibrate(String, Metric, double, LocalDateTime, LocalDateTime)}, but when
+     * {@code resumeAfterTime} and {@code resumeAfterId} are set only readings after that
+     * (measurement time, id) key are corrected. A failed recalibration reports the key of its
+     * last committed chunk, so retrying with it applies the offset exactly once.
+     *
+     * @throws RecalibrationFailedException if a chunk fails; committed chunks stay applied
+     */
+    public RecalibrationResponse recalibrate(String name, Metric metric, double offset,
+                                             LocalDateTime from, LocalDateTime to,
+                                             LocalDateTime resumeAfterTime, Long resumeAfterId) {
+        if (from == null || to == null || !from.isBefore(to)) {
+            throw new InvalidRequestException("'from' must be before 'to'");
+        }
+        if (offset == 0 || !Double.isFinite(offset)) {
+            throw new InvalidRequestException("'offset' must be a non-zero finite number");
+        }
+        if ((resumeAfterTime == null) != (resumeAfterId == null)) {
+            throw new InvalidRequestException("'resumeAfterTime' and 'resumeAfterId' must be given together");
+        }
+        if (resumeAfterTime != null && (resumeAfterTime.isBefore(from) || !resumeAfterTime.isBefore(to))) {
+            throw new InvalidRequestException("'resumeAfterTime' must be in [from, to)");
+        }
+        SegmentArchive archive = segmentArchive.getIfAvailable();
+        LocalDateTime watermark = archive != null ? archive.getWatermark() : null;
+        if (watermark != null && from.isBefore(watermark)) {
+            throw new InvalidRequestException("Readings measured before " + watermark
+                    + " are archived and cannot be recalibrated");
+        }
+
+        long started = System.nanoTime();
+        long updated = 0;
+        long chunks = 0;
+        LocalDateTime afterTime = resumeAfterTime != null ? resumeAfterTime : from;
+        long afterId = resumeAfterId != null ? resumeAfterId : 0;
+        try {
+            while (true) {
+                LocalDateTime chunkAfterTime = afterTime;
+                long chunkAfterId = afterId;
+                List<ReadingKey> keys = new ArrayList<>();
+                Integer rows = chunkTransaction.execute(status -> {
+                    keys.addAll(sensorRepository.findKeysByNameAfter(name, chunkAfterTime, chunkAfterId, to,
+                            Limit.of(chunkSize)));
+                    return keys.isEmpty() ? null : updateChunk(keys, metric, offset);
+                });
+                if (rows == null) {
+                    break;
+                }
+                updated += rows;
+                chunks++;
+                ReadingKey last = keys.get(keys.size() - 1);
+                afterTime = last.getMeasurementTime();
+                afterId = last.getId();
+                if (keys.size() < chunkSize) {
+                    break;
+                }
+                pause();
+            }
+        } catch (RuntimeException ex) {
+            RecalibrationResponse progress = new RecalibrationResponse(name, metric.getColumn(), offset, from, to,
+                    updated, chunks, (System.nanoTime() - started) / 1_000_000);
+            progress.setResumeAfterTime(afterTime);
+            progress.setResumeAfterId(afterId);
+            progress.setError(ex.getMessage());
+            log.error("Recalibration of {} failed after {} rows; resume after ({}, {}): {}",
+                    name, updated, afterTime, afterId, ex.getMessage(), ex);
+            throw new RecalibrationFailedException(progress, ex);
+        } finally {
+            // Committed chunks stay applied even when a later chunk fails
+            quantileSketchService.refreshSensor(name, from, to);
+        }
+        long durationMs = (System.nanoTime() - started) / 1_000_000;
+        log.info("Recalibrated {} of {} by {} in [{}, {}): {} rows in {} chunks, {} ms",
+                metric.getColumn(), name, offset, from, to, updated, chunks, durationMs);
+        RecalibrationResponse response = new RecalibrationResponse(name, metric.getColumn(), offset, from, to,
+                updated, chunks, durationMs);
+        response.setCompleted(true);
+        return response;
+    }
+
+    private int updateChunk(List<ReadingKey> keys, Metric metric, double offset) {
+        List<Long> ids = new ArrayList<>(keys.size());
+        for (ReadingKey key : keys) {
+            ids.add(key.getId());
+        }
+        LocalDateTime now = LocalDateTime.now();
+        switch (metric) {
+            case TEMPERATURE:
+                return sensorRepository.addToTemperature(ids, offset, now);
+            case HUMIDITY:
+                return sensorRepository.addToHumidity(ids, offset, now);
+            default:
+                return sensorRepository.addToPressure(ids, offset, now);
+        }
+    }
+
+    private void pause() {
+        if (pauseMillis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(pauseMillis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Recalibration interrupted", ex);
+        }
+    }
+}
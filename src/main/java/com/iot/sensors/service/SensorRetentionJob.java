@@ -0,0 +1,43 @@
+package com.iot.sensors.service;
+
+import com.iot.sensors.exception.PurgeInProgressException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * Periodically purges readings older than {@code iot.retention.max-age-days} through the
+ * chunked {@link SensorPurgeService}. Disabled unless {@code iot.retention.enabled=true}.
+ * Always created eagerly, since a lazily initialized bean would never be scheduled.
+ */
+@Component
+@Lazy(false)
+@ConditionalOnProperty(name = "iot.retention.enabled", havingValue = "true")
+public class SensorRetentionJob {
+
+    private static final Logger log = LoggerFactory.getLogger(SensorRetentionJob.class);
+
+    private final SensorPurgeService sensorPurgeService;
+    private final long maxAgeDays;
+
+    public SensorRetentionJob(SensorPurgeService sensorPurgeService,
+                              @Value("${iot.retention.max-age-days:90}") long maxAgeDays) {
+        this.sensorPurgeService = sensorPurgeService;
+        this.maxAgeDays = maxAgeDays;
+    }
+
+    @Scheduled(cron = "${iot.retention.cron:0 0 3 * * *}")
+    public void purgeExpiredReadings() {
+        try {
+            sensorPurgeService.purge(LocalDateTime.now().minusDays(maxAgeDays), null, "retention");
+        } catch (PurgeInProgressException ex) {
+            log.warn("Retention purge skipped: {}", ex.getMessage());
+        }
+    }
+}
@@ -1,24 +1,58 @@
 package com.iot.sensors.service;
 
+import com.iot.sensors.archive.SegmentArchive;
+import com.iot.sensors.dto.DeviceSearchResponse;
+import com.iot.sensors.dto.DeviceSummary;
+import com.iot.sensors.dto.ReceivedReading;
+import com.iot.sensors.dto.SensorPatchRequest;
 import com.iot.sensors.dto.SensorRequest;
+import com.iot.sensors.dto.SensorReading;
 import com.iot.sensors.dto.SensorResponse;
+import com.iot.sensors.dto.SeriesPoint;
+import com.iot.sensors.dto.SeriesResponse;
+import com.iot.sensors.exception.ArchivedReadingException;
+import com.iot.sensors.exception.InvalidRequestException;
 import com.iot.sensors.exception.SensorNotFoundException;
 import com.iot.sensors.model.Sensor;
+import com.iot.sensors.repository.SensorBatchInserter;
 import com.iot.sensors.repository.SensorRepository;
+import com.iot.sensors.stats.LttbDownsampler;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @Transactional
 public class SensorService {
 
+    private static final int MAX_SEARCH_PAGE_SIZE = 100;
+    private static final int MAX_SERIES_POINTS = 10_000;
+
     private final SensorRepository sensorRepository;
+    private final SensorBatchInserter sensorBatchInserter;
+    private final QuantileSketchService quantileSketchService;
+    private final ObjectProvider<SegmentArchive> segmentArchive;
 
-    public SensorService(SensorRepository sensorRepository) {
+    public SensorService(SensorRepository sensorRepository, SensorBatchInserter sensorBatchInserter,
+                         QuantileSketchService quantileSketchService, ObjectProvider<SegmentArchive> segmentArchive) {
         this.sensorRepository = sensorRepository;
+        this.sensorBatchInserter = sensorBatchInserter;
+        this.quantileSketchService = quantileSketchService;
+        this.segmentArchive = segmentArchive;
     }
 
     public SensorResponse createSensor(SensorRequest request) {
@@ -30,36 +64,195 @@ public class SensorService {
                 request.getPressure()
         );
         Sensor savedSensor = sensorRepository.save(sensor);
+        quantileSketchService.record(savedSensor);
         return new SensorResponse(savedSensor);
     }
 
+    /**
+     * Persists a batch of already validated readings in a single transaction, with one JDBC
+     * batch insert (COPY on PostgreSQL) instead of one INSERT per entity. Each reading is stamped
+     * with the time it was received, not the time the batch is written.
+     */
+    public void createSensors(List<ReceivedReading> readings) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Sensor> sensors = new ArrayList<>(readings.size());
+        for (ReceivedReading reading : readings) {
+            SensorRequest request = reading.getRequest();
+            Sensor sensor = new Sensor(
+                    request.getName(),
+                    request.getLocation(),
+                    request.getTemperature(),
+                    request.getHumidity(),
+                    request.getPressure()
+            );
+            sensor.setMeasurementTime(reading.getReceivedAt());
+            sensor.setCreatedAt(now);
+            sensors.add(sensor);
+        }
+        sensorBatchInserter.insert(sensors);
+        for (Sensor sensor : sensors) {
+            quantileSketchService.record(sensor);
+        }
+    }
+
     public List<SensorResponse> getAllSensors() {
-        return sensorRepository.findAll().stream()
-                .map(SensorResponse::new)
-                .collect(Collectors.toList());
+        return withArchived(sensorRepository.findAll(), archive -> archive.find(null, null, null, null));
     }
 
     public SensorResponse getSensorById(Long id) {
-        Sensor sensor = sensorRepository.findById(id)
+        SegmentArchive archive = segmentArchive.getIfAvailable();
+        return sensorRepository.findById(id)
+                .map(SensorResponse::new)
+                .or(() -> archive != null ? archive.findById(id).map(SensorResponse::new) : Optional.empty())
                 .orElseThrow(() -> new SensorNotFoundException(id));
-        return new SensorResponse(sensor);
     }
 
     public List<SensorResponse> getSensorsByLocation(String location) {
-        return sensorRepository.findByLocation(location).stream()
-                .map(SensorResponse::new)
-                .collect(Collectors.toList());
+        return withArchived(sensorRepository.findByLocation(location),
+                archive -> archive.find(null, location, null, null));
     }
 
     public List<SensorResponse> getSensorsByName(String name) {
-        return sensorRepository.findByName(name).stream()
-                .map(SensorResponse::new)
-                .collect(Collectors.toList());
+        return withArchived(sensorRepository.findByName(name), archive -> archive.find(name, null, null, null));
     }
 
+    /**
+     * Prepends the matching archived readings (which are older than any live one) to live
+     * results. Rows that are still in the table because a tiering run stopped before deleting
+     * them are only returned once.
+     */
+    private List<SensorResponse> withArchived(List<Sensor> live,
+                                              Function<SegmentArchive, Stream<SensorReading>> archived) {
+        SegmentArchive archive = segmentArchive.getIfAvailable();
+        if (archive == null || archive.getWatermark() == null) {
+            return live.stream().map(SensorResponse::new).collect(Collectors.toList());
+        }
+        Set<Long> liveIds = live.stream().map(Sensor::getId).collect(Collectors.toSet());
+        List<SensorResponse> responses = new ArrayList<>();
+        try (Stream<SensorReading> readings = archived.apply(archive)) {
+            readings.filter(reading -> !liveIds.contains(reading.getId()))
+                    .map(SensorResponse::new)
+                    .forEach(responses::add);
+        }
+        live.forEach(sensor -> responses.add(new SensorResponse(sensor)));
+        return responses;
+    }
+
+    /**
+     * Downsamples the readings of one sensor to at most {@code points} points per metric using
+     * Largest-Triangle-Three-Buckets over equal time buckets. Each metric is downsampled
+     * independently over its non-null values, in a single pass over the range with memory
+     * bounded by {@code points}. When the range starts before the archive watermark, the
+     * archived part is read first and the table only from the watermark.
+     */
+    @Transactional(readOnly = true)
+    public SeriesResponse getSensorSeries(String name, LocalDateTime from, LocalDateTime to, int points) {
+        if (!from.isBefore(to)) {
+            throw new InvalidRequestException("'from' must be before 'to'");
+        }
+        if (points < 3 || points > MAX_SERIES_POINTS) {
+            throw new InvalidRequestException("'points' must be between 3 and " + MAX_SERIES_POINTS);
+        }
+        SegmentArchive archive = segmentArchive.getIfAvailable();
+        LocalDateTime watermark = archive != null ? archive.getWatermark() : null;
+        LocalDateTime split = watermark == null || !watermark.isAfter(from) ? from
+                : watermark.isBefore(to) ? watermark : to;
+        long start = toEpochNanos(from);
+        long end = toEpochNanos(to);
+        LttbDownsampler temperature = new LttbDownsampler(start, end, points);
+        LttbDownsampler humidity = new LttbDownsampler(start, end, points);
+        LttbDownsampler pressure = new LttbDownsampler(start, end, points);
+
+        Stream<SensorReading> archived = split.isAfter(from) ? archive.find(name, null, from, split) : Stream.empty();
+        try (Stream<SensorReading> readings = Stream.concat(archived,
+                sensorRepository.streamReadingsByNameBetween(name, split, to))) {
+            readings.forEach(reading -> {
+                long x = toEpochNanos(reading.getMeasurementTime());
+                if (reading.getTemperature() != null) {
+                    temperature.add(x, reading.getTemperature());
+                }
+                if (reading.getHumidity() != null) {
+                    humidity.add(x, reading.getHumidity());
+                }
+                if (reading.getPressure() != null) {
+                    pressure.add(x, reading.getPressure());
+                }
+            });
+        }
+        return new SeriesResponse(name, from, to, points,
+                toSeries(temperature), toSeries(humidity), toSeries(pressure));
+    }
+
+    private static long toEpochNanos(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000_000L + time.getNano();
+    }
+
+    private static List<SeriesPoint> toSeries(LttbDownsampler downsampler) {
+        downsampler.finish();
+        int size = downsampler.size();
+        List<SeriesPoint> series = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            long nanos = downsampler.getX(i);
+            LocalDateTime time = LocalDateTime.ofInstant(
+                    Instant.ofEpochSecond(0, nanos), ZoneOffset.UTC);
+            series.add(new SeriesPoint(time, downsampler.getY(i)));
+        }
+        return series;
+    }
+
+    /**
+     * Searches distinct devices (name and location pairs) by prefix or substring of their name
+     * or location. Substring searches need at least three characters so that PostgreSQL can
+     * use the trigram indexes.
+     */
+    @Transactional(readOnly = true)
+    public DeviceSearchResponse searchDevices(String query, String field, String mode, int page, int size) {
+        if (query == null || query.isEmpty()) {
+            throw new InvalidRequestException("Search text 'q' is required");
+        }
+        if (page < 0 || size < 1 || size > MAX_SEARCH_PAGE_SIZE) {
+            throw new InvalidRequestException("'page' must be >= 0 and 'size' between 1 and " + MAX_SEARCH_PAGE_SIZE);
+        }
+        String escaped = query.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+        String pattern;
+        switch (mode) {
+            case "prefix":
+                pattern = escaped + "%";
+                break;
+            case "contains":
+                if (query.length() < 3) {
+                    throw new InvalidRequestException("Substring search needs at least 3 characters");
+                }
+                pattern = "%" + escaped + "%";
+                break;
+            default:
+                throw new InvalidRequestException("Unknown search mode: " + mode + " (expected prefix or contains)");
+        }
+
+        PageRequest pageable = PageRequest.of(page, size);
+        Slice<DeviceSummary> devices;
+        switch (field) {
+            case "name":
+                devices = sensorRepository.searchDevicesByName(pattern, pageable);
+                break;
+            case "location":
+                devices = sensorRepository.searchDevicesByLocation(pattern, pageable);
+                break;
+            default:
+                throw new InvalidRequestException("Unknown search field: " + field + " (expected name or location)");
+        }
+        return new DeviceSearchResponse(devices.getContent(), page, size, devices.hasNext());
+    }
+
+    /**
+     * Replaces a reading. Readings measured before the archive watermark are read-only.
+     */
     public SensorResponse updateSensor(Long id, SensorRequest request) {
         Sensor sensor = sensorRepository.findById(id)
-                .orElseThrow(() -> new SensorNotFoundException(id));
+                .orElseThrow(() -> notFound(id));
+        checkNotArchived(id, sensor.getMeasurementTime());
+        Set<String> names = new LinkedHashSet<>(List.of(sensor.getName(), request.getName()));
+        Set<String> locations = new LinkedHashSet<>(List.of(sensor.getLocation(), request.getLocation()));
         
         sensor.setName(request.getName());
         sensor.setLocation(request.getLocation());
@@ -68,13 +261,65 @@ public class SensorService {
         sensor.setPressure(request.getPressure());
         
         Sensor updatedSensor = sensorRepository.save(sensor);
+        quantileSketchService.refresh(names, locations, sensor.getMeasurementTime(), sensor.getMeasurementTime());
         return new SensorResponse(updatedSensor);
     }
 
+    /**
+     * Updates only the supplied fields of a reading with one {@code UPDATE}, without loading
+     * it first. Readings measured before the archive watermark are read-only, so the update
+     * skips them and only when nothing was updated is the archive asked whether the reading is
+     * archived. When the name or location changes, the previous key is read first, so the
+     * quantile sketches it was counted in can be rebuilt.
+     */
+    public void patchSensor(Long id, SensorPatchRequest request) {
+        if (request.getName() == null && request.getLocation() == null && request.getTemperature() == null
+                && request.getHumidity() == null && request.getPressure() == null) {
+            throw new InvalidRequestException("At least one field must be supplied");
+        }
+        SensorReading previous = null;
+        if (request.getName() != null || request.getLocation() != null) {
+            previous = sensorRepository.findReadingById(id).orElseThrow(() -> notFound(id));
+            checkNotArchived(id, previous.getMeasurementTime());
+        }
+        int updated = sensorRepository.patchSensor(id, request.getName(), request.getLocation(),
+                request.getTemperature(), request.getHumidity(), request.getPressure(), LocalDateTime.now(),
+                archiveWatermark());
+        if (updated == 0) {
+            throw notFound(id);
+        }
+        quantileSketchService.refreshReading(id, previous);
+    }
+
+    /**
+     * Deletes a reading with one statement that returns the key the quantile sketches need.
+     * Readings measured before the archive watermark are read-only, so the delete skips them;
+     * only when nothing was deleted is the archive asked whether the reading is archived.
+     */
     public void deleteSensor(Long id) {
-        if (!sensorRepository.existsById(id)) {
-            throw new SensorNotFoundException(id);
+        SensorReading reading = sensorRepository.deleteSensorReturningKey(id, archiveWatermark())
+                .orElseThrow(() -> notFound(id));
+        quantileSketchService.refresh(List.of(reading.getName()), List.of(reading.getLocation()),
+                reading.getMeasurementTime(), reading.getMeasurementTime());
+    }
+
+    private LocalDateTime archiveWatermark() {
+        SegmentArchive archive = segmentArchive.getIfAvailable();
+        return archive != null ? archive.getWatermark() : null;
+    }
+
+    private void checkNotArchived(Long id, LocalDateTime measurementTime) {
+        LocalDateTime watermark = archiveWatermark();
+        if (watermark != null && measurementTime.isBefore(watermark)) {
+            throw new ArchivedReadingException(id);
+        }
+    }
+
+    private RuntimeException notFound(Long id) {
+        SegmentArchive archive = segmentArchive.getIfAvailable();
+        if (archive != null && archive.findById(id).isPresent()) {
+            return new ArchivedReadingException(id);
         }
-        sensorRepository.deleteById(id);
+        return new SensorNotFoundException(id);
     }
 }
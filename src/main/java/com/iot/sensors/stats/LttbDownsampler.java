@@ -0,0 +1,231 @@
+package com.iot.sensors.stats;
+
+import java.util.Arrays;
+
+/**
+ * Streaming Largest-Triangle-Three-Buckets downsampling (Steinarsson, 2013) over equal-width
+ * time buckets, with MinMax preselection (Van Der Donckt et al., 2023).
+ * <p>
+ * The range {@code [from, to)} is split into {@code threshold - 2} buckets of equal duration;
+ * the first and the last point are always kept and every non-empty bucket contributes one
+ * point. No count of the points is needed up front, so the series is read in a single pass.
+ * Each bucket is further split into {@value #SUB_BUCKETS} sub-buckets of which only the lowest
+ * and highest point are kept as candidates, together with the running average of the bucket.
+ * The triangle area is a linear function of the candidate, so its maximum lies on an extreme
+ * point and peaks survive; besides the selected points, memory is two buckets of candidates
+ * whatever the length of the series.
+ * <p>
+ * Points are {@code (x, y)} pairs where {@code x} is a timestamp in epoch nanoseconds.
+ */
+public class LttbDownsampler {
+
+    static final int SUB_BUCKETS = 4;
+
+    private final long from;
+    private final int buckets;
+    private final double bucketWidth;
+
+    private final long[] selectedX;
+    private final double[] selectedY;
+    private int selected;
+
+    // The latest point is held back until the next one arrives, so the last point is known
+    private boolean holding;
+    private long heldX;
+    private double heldY;
+
+    // Complete bucket waiting for the average of the next non-empty one, and the bucket being filled
+    private Bucket pending = new Bucket();
+    private Bucket filling = new Bucket();
+    private boolean finished;
+    private long lastX;
+
+    public LttbDownsampler(long from, long to, int threshold) {
+        if (threshold < 3) {
+            throw new IllegalArgumentException("At least 3 points are required");
+        }
+        if (to <= from) {
+            throw new IllegalArgumentException("The range must not be empty");
+        }
+        this.from = from;
+        this.buckets = threshold - 2;
+        this.bucketWidth = (double) (to - from) / buckets;
+        this.selectedX = new long[threshold];
+        this.selectedY = new double[threshold];
+    }
+
+    /**
+     * Adds the next point. Points must arrive in ascending {@code x} order; points outside the
+     * range count towards the first or last bucket.
+     *
+     * @throws IllegalArgumentException if {@code x} is lower than the previous point's
+     */
+    public void add(long x, double y) {
+        if (finished) {
+            throw new IllegalStateException("Points cannot be added after finish()");
+        }
+        if (selected == 0) {
+            select(x, y);
+            lastX = x;
+            return;
+        }
+        if (x < lastX) {
+            throw new IllegalArgumentException("Points must be added in ascending x order: " + x
+                    + " after " + lastX);
+        }
+        lastX = x;
+        if (holding) {
+            place(heldX, heldY);
+        }
+        heldX = x;
+        heldY = y;
+        holding = true;
+    }
+
+    /**
+     * Decides the remaining buckets and keeps the last point; call once after the last point.
+     */
+    public void finish() {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        if (filling.count > 0) {
+            if (pending.count > 0) {
+                decide(pending, filling.averageX(from), filling.averageY());
+            }
+            swap();
+        }
+        if (holding) {
+            if (pending.count > 0) {
+                decide(pending, heldX, heldY);
+            }
+            select(heldX, heldY);
+        }
+    }
+
+    /**
+     * Number of selected points; only valid after {@link #finish()}.
+     */
+    public int size() {
+        if (!finished) {
+            throw new IllegalStateException("finish() has not been called");
+        }
+        return selected;
+    }
+
+    public long getX(int i) {
+        return selectedX[i];
+    }
+
+    public double getY(int i) {
+        return selectedY[i];
+    }
+
+    private void place(long x, double y) {
+        double offset = x - from;
+        int bucket = (int) Math.max(0, Math.min(buckets - 1, (long) Math.floor(offset / bucketWidth)));
+        if (bucket != filling.index) {
+            if (filling.count > 0) {
+                if (pending.count > 0) {
+                    decide(pending, filling.averageX(from), filling.averageY());
+                }
+                swap();
+            }
+            filling.reset(bucket);
+        }
+        int sub = (int) Math.max(0, Math.min(SUB_BUCKETS - 1,
+                (long) Math.floor((offset / bucketWidth - bucket) * SUB_BUCKETS)));
+        filling.add(sub, x, offset, y);
+    }
+
+    private void swap() {
+        Bucket complete = filling;
+        filling = pending;
+        pending = complete;
+        filling.reset(-1);
+    }
+
+    /**
+     * Selects the candidate of {@code bucket} forming the largest triangle with the previously
+     * selected point and the average of the next bucket.
+     */
+    private void decide(Bucket bucket, double nextX, double nextY) {
+        long previousX = selectedX[selected - 1];
+        double previousY = selectedY[selected - 1];
+        long bestX = 0;
+        double bestY = 0;
+        double bestArea = -1;
+        for (int k = 0; k < 2 * SUB_BUCKETS; k++) {
+            int sub = k >> 1;
+            if (!bucket.occupied[sub]) {
+                continue;
+            }
+            long x = (k & 1) == 0 ? bucket.minX[sub] : bucket.maxX[sub];
+            double y = (k & 1) == 0 ? bucket.minY[sub] : bucket.maxY[sub];
+            double area = Math.abs((previousX - nextX) * (y - previousY)
+                    - (double) (previousX - x) * (nextY - previousY));
+            if (area > bestArea) {
+                bestArea = area;
+                bestX = x;
+                bestY = y;
+            }
+        }
+        select(bestX, bestY);
+        bucket.reset(-1);
+    }
+
+    private void select(long x, double y) {
+        selectedX[selected] = x;
+        selectedY[selected++] = y;
+    }
+
+    private static final class Bucket {
+
+        private int index = -1;
+        private long count;
+        // Offsets from the range start keep the sum small enough for double precision
+        private double sumOffset;
+        private double sumY;
+        private final boolean[] occupied = new boolean[SUB_BUCKETS];
+        private final long[] minX = new long[SUB_BUCKETS];
+        private final double[] minY = new double[SUB_BUCKETS];
+        private final long[] maxX = new long[SUB_BUCKETS];
+        private final double[] maxY = new double[SUB_BUCKETS];
+
+        private void reset(int index) {
+            this.index = index;
+            count = 0;
+            sumOffset = 0;
+            sumY = 0;
+            Arrays.fill(occupied, false);
+        }
+
+        private void add(int sub, long x, double offset, double y) {
+            count++;
+            sumOffset += offset;
+            sumY += y;
+            if (!occupied[sub]) {
+                occupied[sub] = true;
+                minX[sub] = x;
+                minY[sub] = y;
+                maxX[sub] = x;
+                maxY[sub] = y;
+            } else if (y < minY[sub]) {
+                minX[sub] = x;
+                minY[sub] = y;
+            } else if (y > maxY[sub]) {
+                maxX[sub] = x;
+                maxY[sub] = y;
+            }
+        }
+
+        private double averageX(long from) {
+            return from + sumOffset / count;
+        }
+
+        private double averageY() {
+            return sumY / count;
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package com.iot.sensors.stats;
+
+import java.util.Arrays;
+
+/**
+ * Merging t-digest (Dunning) for streaming quantile estimation.
+ * <p>
+ * Values are buffered and periodically merged into a sorted set of centroids whose
+ * size is limited by the {@code k1} (arcsine) scale function, so the number of
+ * centroids never exceeds {@code compression + 2} regardless of how many values are
+ * added. Accuracy is best at the tails: the rank error at quantile {@code q} is roughly
+ * proportional to {@code q(1 - q) / compression}.
+ * <p>
+ * Digests are mergeable: {@link #add(TDigest)} folds another digest's centroids into
+ * this one, which is how per-bucket sketches are combined over arbitrary ranges.
+ * All public methods are synchronized; contention is expected to be low since each
+ * digest is owned by a single sensor or location bucket.
+ * <p>
+ * Arrays are allocated on first use and grown on demand, so the many sparsely filled
+ * per-bucket digests stay small and a digest used only as a merge target never buffers.
+ */
+public class TDigest {
+
+    private static final double[] EMPTY = new double[0];
+    private static final int INITIAL_CAPACITY = 8;
+
+    private final double compression;
+    private final int maxCentroids;
+
+    private double[] means = EMPTY;
+    private double[] weights = EMPTY;
+    private int centroids;
+
+    private final int bufferCapacity;
+    private double[] buffer = EMPTY;
+    private int buffered;
+
+    private long count;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    public TDigest(double compression) {
+        if (compression < 10) {
+            throw new IllegalArgumentException("Compression must be at least 10");
+        }
+        this.compression = compression;
+        this.maxCentroids = (int) Math.ceil(compression) + 2;
+        this.bufferCapacity = Math.max(32, (int) compression / 2);
+    }
+
+    public double getCompression() {
+        return compression;
+    }
+
+    public synchronized long size() {
+        return count;
+    }
+
+    synchronized int centroidCount() {
+        flush();
+        return centroids;
+    }
+
+    synchronized int allocatedDoubles() {
+        return means.length + weights.length + buffer.length;
+    }
+
+    public synchronized double getMin() {
+        return count == 0 ? Double.NaN : min;
+    }
+
+    public synchronized double getMax() {
+        return count == 0 ? Double.NaN : max;
+    }
+
+    public synchronized void add(double value) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        if (buffered == buffer.length) {
+            if (buffer.length < bufferCapacity) {
+                int capacity = Math.min(bufferCapacity, Math.max(INITIAL_CAPACITY, buffer.length * 2));
+                buffer = Arrays.copyOf(buffer, capacity);
+            } else {
+                flush();
+            }
+        }
+        buffer[buffered++] = value;
+        count++;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Merges the content of {@code other} into this digest. {@code other} is not modified
+     * apart from flushing its pending buffer.
+     */
+    public void add(TDigest other) {
+        if (other == this) {
+            throw new IllegalArgumentException("Cannot merge a digest into itself");
+        }
+        double[] otherMeans;
+        double[] otherWeights;
+        double otherMin;
+        double otherMax;
+        long otherCount;
+        synchronized (other) {
+            other.flush();
+            otherMeans = Arrays.copyOf(other.means, other.centroids);
+            otherWeights = Arrays.copyOf(other.weights, other.centroids);
+            otherMin = other.min;
+            otherMax = other.max;
+            otherCount = other.count;
+        }
+        if (otherCount == 0) {
+            return;
+        }
+        synchronized (this) {
+            flush();
+            merge(otherMeans, otherWeights, otherMeans.length);
+            count += otherCount;
+            min = Math.min(min, otherMin);
+            max = Math.max(max, otherMax);
+        }
+    }
+
+    /**
+     * Returns the estimated value at quantile {@code q} (0..1), or {@code NaN} when empty.
+     */
+    public synchronized double quantile(double q) {
+        if (q < 0 || q > 1) {
+            throw new IllegalArgumentException("Quantile must be between 0 and 1: " + q);
+        }
+        flush();
+        if (count == 0) {
+            return Double.NaN;
+        }
+        if (centroids == 1) {
+            return means[0];
+        }
+        double index = q * count;
+        double firstHalf = weights[0] / 2;
+        if (index <= firstHalf) {
+            return interpolate(index, 0, min, firstHalf, means[0]);
+        }
+        double lastHalf = weights[centroids - 1] / 2;
+        if (index >= count - lastHalf) {
+            return interpolate(index, count - lastHalf, means[centroids - 1], count, max);
+        }
+        double cumulative = firstHalf;
+        for (int i = 0; i < centroids - 1; i++) {
+            double step = (weights[i] + weights[i + 1]) / 2;
+            if (index <= cumulative + step) {
+                return interpolate(index, cumulative, means[i], cumulative + step, means[i + 1]);
+            }
+            cumulative += step;
+        }
+        return max;
+    }
+
+    private static double interpolate(double x, double x0, double y0, double x1, double y1) {
+        if (x1 <= x0) {
+            return y0;
+        }
+        return y0 + (y1 - y0) * (x - x0) / (x1 - x0);
+    }
+
+    private void flush() {
+        if (buffered == 0) {
+            return;
+        }
+        Arrays.sort(buffer, 0, buffered);
+        double[] unitWeights = new double[buffered];
+        Arrays.fill(unitWeights, 1.0);
+        double[] values = Arrays.copyOf(buffer, buffered);
+        buffered = 0;
+        merge(values, unitWeights, values.length);
+    }
+
+    /**
+     * Merges a sorted run of centroids with the current centroids and compresses the
+     * result according to the k1 scale function.
+     */
+    private void merge(double[] incomingMeans, double[] incomingWeights, int incoming) {
+        int total = centroids + incoming;
+        double[] mergedMeans = new double[total];
+        double[] mergedWeights = new double[total];
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        double totalWeight = 0;
+        while (i < centroids || j < incoming) {
+            if (j >= incoming || (i < centroids && means[i] <= incomingMeans[j])) {
+                mergedMeans[k] = means[i];
+                mergedWeights[k] = weights[i];
+                i++;
+            } else {
+                mergedMeans[k] = incomingMeans[j];
+                mergedWeights[k] = incomingWeights[j];
+                j++;
+            }
+            totalWeight += mergedWeights[k];
+            k++;
+        }
+
+        if (means.length < Math.min(total, maxCentroids)) {
+            int capacity = Math.min(maxCentroids, Math.max(total, means.length * 2));
+            means = new double[capacity];
+            weights = new double[capacity];
+        }
+
+        int out = 0;
+        double weightSoFar = 0;
+        double currentMean = mergedMeans[0];
+        double currentWeight = mergedWeights[0];
+        double kLeft = scale(0);
+        for (int n = 1; n < total; n++) {
+            double proposed = currentWeight + mergedWeights[n];
+            double qRight = Math.min(1.0, (weightSoFar + proposed) / totalWeight);
+            if (scale(qRight) - kLeft <= 1.0) {
+                currentMean += (mergedMeans[n] - currentMean) * mergedWeights[n] / proposed;
+                currentWeight = proposed;
+            } else {
+                out = emit(out, currentMean, currentWeight);
+                weightSoFar += currentWeight;
+                kLeft = scale(Math.min(1.0, weightSoFar / totalWeight));
+                currentMean = mergedMeans[n];
+                currentWeight = mergedWeights[n];
+            }
+        }
+        centroids = emit(out, currentMean, currentWeight);
+    }
+
+    private int emit(int index, double mean, double weight) {
+        if (index == means.length) {
+            // Only reachable through floating point rounding at the scale boundaries.
+            means = Arrays.copyOf(means, index + 1);
+            weights = Arrays.copyOf(weights, index + 1);
+        }
+        means[index] = mean;
+        weights[index] = weight;
+        return index + 1;
+    }
+
+    private double scale(double q) {
+        return compression / (2 * Math.PI) * Math.asin(2 * q - 1);
+    }
+}
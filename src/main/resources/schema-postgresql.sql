@@ -9,15 +9,16 @@
 
 -- Drop table if exists (be careful in production!)
 DROP TABLE IF EXISTS sensors CASCADE;
+DROP TABLE IF EXISTS quantile_sketch_lease;
 
 -- Create sensors table
 CREATE TABLE sensors (
     id BIGSERIAL PRIMARY KEY,
     name VARCHAR(255) NOT NULL,
     location VARCHAR(255) NOT NULL,
-    temperature DOUBLE PRECISION NOT NULL,
-    humidity DOUBLE PRECISION NOT NULL,
-    pressure DOUBLE PRECISION NOT NULL,
+    temperature DOUBLE PRECISION,
+    humidity DOUBLE PRECISION,
+    pressure DOUBLE PRECISION,
     measurement_time TIMESTAMP NOT NULL,
     created_at TIMESTAMP NOT NULL,
     updated_at TIMESTAMP
@@ -27,6 +28,25 @@ CREATE TABLE sensors (
 CREATE INDEX idx_sensors_location ON sensors(location);
 CREATE INDEX idx_sensors_name ON sensors(name);
 CREATE INDEX idx_sensors_measurement_time ON sensors(measurement_time);
+CREATE INDEX idx_sensors_name_measurement_time ON sensors(name, measurement_time);
+CREATE INDEX idx_sensors_location_measurement_time ON sensors(location, measurement_time);
+
+-- Indexes for device search: text_pattern_ops B-trees serve prefix LIKE regardless of the
+-- database collation (measurement_time is included so the per-device count and max need no
+-- table access), and trigram GIN indexes serve substring LIKE (3+ characters)
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE INDEX idx_sensors_name_prefix ON sensors(name text_pattern_ops, location) INCLUDE (measurement_time);
+CREATE INDEX idx_sensors_location_prefix ON sensors(location text_pattern_ops, name) INCLUDE (measurement_time);
+CREATE INDEX idx_sensors_name_trgm ON sensors USING gin (name gin_trgm_ops);
+CREATE INDEX idx_sensors_location_trgm ON sensors USING gin (location gin_trgm_ops);
+
+-- Single-instance lease for the in-memory quantile sketches: the instance that serves
+-- percentiles holds the only row (see QuantileSketchLease and iot.stats.instance-lease.*)
+CREATE TABLE quantile_sketch_lease (
+    id INTEGER PRIMARY KEY,
+    owner VARCHAR(255) NOT NULL,
+    expires_at TIMESTAMP NOT NULL
+);
 
 -- Insert some initial data (optional)
 INSERT INTO sensors (name, location, temperature, humidity, pressure, measurement_time, created_at) VALUES
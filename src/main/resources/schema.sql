@@ -5,9 +5,9 @@ CREATE TABLE IF NOT EXISTS sensors (
     id BIGSERIAL PRIMARY KEY,
     name VARCHAR(255) NOT NULL,
     location VARCHAR(255) NOT NULL,
-    temperature DOUBLE PRECISION NOT NULL,
-    humidity DOUBLE PRECISION NOT NULL,
-    pressure DOUBLE PRECISION NOT NULL,
+    temperature DOUBLE PRECISION,
+    humidity DOUBLE PRECISION,
+    pressure DOUBLE PRECISION,
     measurement_time TIMESTAMP NOT NULL,
     created_at TIMESTAMP NOT NULL,
     updated_at TIMESTAMP
@@ -17,3 +17,17 @@ CREATE TABLE IF NOT EXISTS sensors (
 CREATE INDEX IF NOT EXISTS idx_sensors_location ON sensors(location);
 CREATE INDEX IF NOT EXISTS idx_sensors_name ON sensors(name);
 CREATE INDEX IF NOT EXISTS idx_sensors_measurement_time ON sensors(measurement_time);
+CREATE INDEX IF NOT EXISTS idx_sensors_name_measurement_time ON sensors(name, measurement_time);
+CREATE INDEX IF NOT EXISTS idx_sensors_location_measurement_time ON sensors(location, measurement_time);
+
+-- Indexes for device search: prefix LIKE uses the leading column, and substring search on H2
+-- scans these narrow indexes instead of the table (PostgreSQL uses trigram indexes instead)
+CREATE INDEX IF NOT EXISTS idx_sensors_name_location ON sensors(name, location);
+CREATE INDEX IF NOT EXISTS idx_sensors_location_name ON sensors(location, name);
+
+-- Single-instance lease for the in-memory quantile sketches (see QuantileSketchLease)
+CREATE TABLE IF NOT EXISTS quantile_sketch_lease (
+    id INTEGER PRIMARY KEY,
+    owner VARCHAR(255) NOT NULL,
+    expires_at TIMESTAMP NOT NULL
+);
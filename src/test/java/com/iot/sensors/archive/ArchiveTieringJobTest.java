@@ -0,0 +1,198 @@
+package com.iot.sensors.archive;
+
+import com.iot.sensors.dto.SensorPatchRequest;
+import com.iot.sensors.dto.SensorReading;
+import com.iot.sensors.dto.SensorRequest;
+import com.iot.sensors.dto.SensorResponse;
+import com.iot.sensors.dto.SeriesResponse;
+import com.iot.sensors.exception.ArchivedReadingException;
+import com.iot.sensors.exception.SensorNotFoundException;
+import com.iot.sensors.model.Sensor;
+import com.iot.sensors.repository.SensorRepository;
+import com.iot.sensors.service.SensorPurgeService;
+import com.iot.sensors.service.SensorService;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {"iot.archive.enabled=true", "iot.archive.window-hours=24", "iot.purge.pause-ms=0"})
+@ActiveProfiles("dev")
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class ArchiveTieringJobTest {
+
+    @TempDir
+    static Path archiveDirectory;
+
+    @DynamicPropertySource
+    static void archiveProperties(DynamicPropertyRegistry registry) {
+        registry.add("iot.archive.directory", archiveDirectory::toString);
+    }
+
+    @Autowired
+    private SensorRepository sensorRepository;
+
+    @Autowired
+    private SensorService sensorService;
+
+    @Autowired
+    private SensorPurgeService sensorPurgeService;
+
+    @Autowired
+    private ArchiveTieringJob archiveTieringJob;
+
+    @Autowired
+    private SegmentArchive segmentArchive;
+
+    @Test
+    @Order(1)
+    void shouldMoveOldReadingsToArchiveAndMergeThemOnRead() throws Exception {
+        sensorRepository.deleteAll();
+        LocalDateTime now = LocalDateTime.now();
+        Sensor oldest = saveAt("Archived-1", "Lab", now.minusDays(10), 20.0);
+        saveAt("Archived-1", "Lab", now.minusDays(9), 21.0);
+        saveAt("Other", "Lab", now.minusDays(10), 30.0);
+        Sensor recent = saveAt("Archived-1", "Lab", now.minusHours(1), 22.0);
+
+        long archived = archiveTieringJob.archive(now.minusDays(2));
+
+        assertEquals(3, archived);
+        assertEquals(1, sensorRepository.count());
+        assertNotNull(segmentArchive.getWatermark());
+
+        List<SensorResponse> readings = sensorService.getSensorsByName("Archived-1");
+        assertEquals(List.of(oldest.getId(), oldest.getId() + 1, recent.getId()),
+                readings.stream().map(SensorResponse::getId).collect(Collectors.toList()));
+        assertEquals(20.0, sensorService.getSensorById(oldest.getId()).getTemperature());
+        assertThrows(ArchivedReadingException.class, () -> sensorService.deleteSensor(oldest.getId()));
+        assertThrows(ArchivedReadingException.class, () -> sensorService.updateSensor(oldest.getId(),
+                new SensorRequest("Archived-1", "Lab", 25.0, null, null)));
+        assertThrows(ArchivedReadingException.class, () -> sensorService.patchSensor(oldest.getId(),
+                new SensorPatchRequest(null, null, 25.0, null, null)));
+        assertThrows(SensorNotFoundException.class, () -> sensorService.deleteSensor(-1L));
+        assertEquals(4, sensorService.getAllSensors().size());
+        List<SensorResponse> lab = sensorService.getSensorsByLocation("Lab");
+        assertEquals(4, lab.size());
+        assertEquals(3, lab.stream().filter(reading -> reading.getCreatedAt() == null).count());
+
+        SeriesResponse series = sensorService.getSensorSeries("Archived-1", now.minusDays(30), now, 100);
+        assertEquals(List.of(20.0, 21.0, 22.0),
+                series.getTemperature().stream().map(point -> point.getValue()).collect(Collectors.toList()));
+
+        // A second run has nothing left to archive
+        assertEquals(0, archiveTieringJob.archive(now.minusDays(2)));
+
+        // A torn write after the last commit is discarded when the archive is reopened
+        try (FileChannel segment = FileChannel.open(archiveDirectory.resolve("segment-000001.seg"),
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            segment.write(ByteBuffer.wrap(new byte[]{1, 0, 0, 0, 100, 42}));
+        }
+        try (SegmentArchive reopened = new SegmentArchive(archiveDirectory.toString(), 1 << 20, 100)) {
+            assertEquals(segmentArchive.getWatermark(), reopened.getWatermark());
+            assertEquals(3, reopened.getStats().getReadings());
+            assertEquals(2, reopened.find("Archived-1", null, null, null).count());
+        }
+    }
+
+    @Test
+    @Order(2)
+    void shouldArchiveLateRowsAndFinishInterruptedPurges() {
+        LocalDateTime now = LocalDateTime.now();
+        Sensor first = saveAt("Late-1", "Yard", now.minusDays(20), 10.0);
+        archiveTieringJob.archive(now.minusDays(2));
+        long archivedBefore = segmentArchive.getStats().getReadings();
+
+        // A backfilled row below the watermark is archived, not deleted
+        Sensor late = saveAt("Late-1", "Yard", first.getMeasurementTime(), 11.0);
+        assertEquals(1, archiveTieringJob.archive(now.minusDays(2)));
+        assertTrue(sensorRepository.findById(late.getId()).isEmpty());
+        assertEquals(11.0, sensorService.getSensorById(late.getId()).getTemperature());
+
+        // A run that stopped after committing a window deletes its rows without archiving them twice
+        Sensor copied = saveAt("Late-1", "Yard", first.getMeasurementTime(), 12.0);
+        segmentArchive.archiveWindow(segmentArchive.getWatermark(),
+                Stream.of(sensorRepository.findReadingById(copied.getId()).orElseThrow()));
+        assertEquals(0, archiveTieringJob.archive(now.minusDays(2)));
+        assertTrue(sensorRepository.findById(copied.getId()).isEmpty());
+
+        assertEquals(archivedBefore + 2, segmentArchive.getStats().getReadings());
+        assertEquals(3, sensorService.getSensorsByName("Late-1").size());
+    }
+
+    @Test
+    @Order(3)
+    void shouldDeletePurgedReadingsFromArchive(@TempDir Path directory) throws Exception {
+        sensorPurgeService.purge(LocalDateTime.now().minusDays(15), "Yard", "api");
+        assertTrue(sensorService.getSensorsByName("Late-1").isEmpty());
+        assertEquals(3, sensorService.getSensorsByName("Archived-1").size());
+
+        // One record per segment, so whole segments can be dropped
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 0, 0);
+        try (SegmentArchive archive = new SegmentArchive(directory.toString(), 1, 100)) {
+            for (int day = 0; day < 3; day++) {
+                LocalDateTime time = base.plusDays(day);
+                archive.archiveWindow(time.plusDays(1), Stream.of(
+                        new SensorReading(10L + day, "Old", "Hall", time, 18.0, null, null),
+                        new SensorReading(1L + day, "Old", "Lab", time, 20.0, null, null)));
+            }
+            archive.markPurged();
+            archive.delete(base.plusDays(1), null);
+            archive.delete(base.plusDays(3), "Hall");
+
+            assertEquals(List.of(2L, 3L), archive.find(null, null, null, null)
+                    .map(SensorReading::getId).collect(Collectors.toList()));
+            assertTrue(archive.findById(10L).isEmpty());
+            assertFalse(Files.exists(directory.resolve("segment-000004.seg")));
+            assertTrue(Files.exists(directory.resolve("segment-000005.seg")));
+        }
+        try (SegmentArchive reopened = new SegmentArchive(directory.toString(), 1, 100)) {
+            assertEquals(List.of(2L, 3L), reopened.find(null, null, null, null)
+                    .map(SensorReading::getId).collect(Collectors.toList()));
+            assertEquals(base.plusDays(3), reopened.getWatermark());
+        }
+    }
+
+    @Test
+    @Order(4)
+    void shouldReadOverlappingArchivedBlocksInTimeOrder() {
+        LocalDateTime start = LocalDateTime.now().minusDays(30).withNano(0);
+        saveAt("Late-2", "Dock", start, 10.0);
+        saveAt("Late-2", "Dock", start.plusHours(2), 12.0);
+        archiveTieringJob.archive(LocalDateTime.now().minusDays(2));
+
+        // The late block starts inside the time range of the first one
+        saveAt("Late-2", "Dock", start.plusHours(1), 11.0);
+        assertEquals(1, archiveTieringJob.archive(LocalDateTime.now().minusDays(2)));
+
+        assertEquals(List.of(start, start.plusHours(1), start.plusHours(2)),
+                segmentArchive.find("Late-2", null, null, null)
+                        .map(SensorReading::getMeasurementTime).collect(Collectors.toList()));
+        SeriesResponse series = sensorService.getSensorSeries("Late-2", start.minusDays(1), start.plusDays(1), 10);
+        assertEquals(List.of(10.0, 11.0, 12.0),
+                series.getTemperature().stream().map(point -> point.getValue()).collect(Collectors.toList()));
+    }
+
+    private Sensor saveAt(String name, String location, LocalDateTime measurementTime, double temperature) {
+        Sensor sensor = new Sensor(name, location, temperature, 50.0, 1013.0);
+        sensor.setMeasurementTime(measurementTime);
+        return sensorRepository.save(sensor);
+    }
+}
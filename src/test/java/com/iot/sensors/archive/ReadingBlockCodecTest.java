@@ -0,0 +1,75 @@
+package com.iot.sensors.archive;
+
+import com.iot.sensors.dto.SensorReading;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReadingBlockCodecTest {
+
+    @Test
+    void shouldRoundTripJitteredReadingsWithMissingValues() {
+        Random random = new Random(42);
+        LocalDateTime time = LocalDateTime.of(2024, 1, 1, 0, 0, 0, 123_456_000);
+        List<SensorReading> readings = new ArrayList<>();
+        long id = 1000;
+        double temperature = 21.5;
+        for (int i = 0; i < 2880; i++) {
+            time = time.plusNanos((20_000L + random.nextInt(20_000)) * 1_000_000L + random.nextInt(1000) * 1000L);
+            id += 1 + random.nextInt(50);
+            temperature += random.nextInt(3) - 1;
+            readings.add(new SensorReading(id, "Sensor-Ñ", "Sala 1", time,
+                    temperature,
+                    random.nextInt(10) == 0 ? null : Math.round(random.nextDouble() * 10000) / 100.0,
+                    i == 7 ? Double.NaN : 1013.25));
+        }
+
+        byte[] block = ReadingBlockCodec.encode(readings);
+        List<SensorReading> decoded = ReadingBlockCodec.decode(ByteBuffer.wrap(block), Long.MIN_VALUE, Long.MAX_VALUE);
+
+        assertEquals(readings.size(), decoded.size());
+        for (int i = 0; i < readings.size(); i++) {
+            SensorReading expected = readings.get(i);
+            SensorReading actual = decoded.get(i);
+            assertEquals(expected.getId(), actual.getId());
+            assertEquals(expected.getName(), actual.getName());
+            assertEquals(expected.getLocation(), actual.getLocation());
+            assertEquals(expected.getMeasurementTime(), actual.getMeasurementTime());
+            assertEquals(expected.getTemperature(), actual.getTemperature());
+            assertEquals(expected.getHumidity(), actual.getHumidity());
+            assertEquals(expected.getPressure(), actual.getPressure());
+        }
+        assertTrue(block.length < readings.size() * 16, "expected well under 16 bytes per reading, got "
+                + (double) block.length / readings.size());
+    }
+
+    @Test
+    void shouldExposeHeaderAndFilterByTime() {
+        LocalDateTime start = LocalDateTime.of(2024, 3, 1, 12, 0);
+        List<SensorReading> readings = List.of(
+                new SensorReading(5L, "S", "L", start, null, null, null),
+                new SensorReading(9L, "S", "L", start.plusMinutes(1), 20.0, null, null),
+                new SensorReading(7L, "S", "L", start.plusMinutes(2), 21.0, 50.0, null));
+
+        ByteBuffer block = ByteBuffer.wrap(ReadingBlockCodec.encode(readings));
+        ReadingBlockCodec.BlockHeader header = ReadingBlockCodec.readHeader(block);
+
+        assertEquals(3, header.count());
+        assertEquals(5L, header.minId());
+        assertEquals(9L, header.maxId());
+        assertEquals(2, header.temperatureCount());
+        assertEquals(1, header.humidityCount());
+        assertEquals(0, header.pressureCount());
+        List<SensorReading> middle = ReadingBlockCodec.decode(block,
+                ReadingBlockCodec.toEpochMicros(start.plusSeconds(30)), ReadingBlockCodec.toEpochMicros(start.plusMinutes(2)));
+        assertEquals(1, middle.size());
+        assertEquals(9L, middle.get(0).getId());
+        assertEquals(20.0, middle.get(0).getTemperature());
+    }
+}
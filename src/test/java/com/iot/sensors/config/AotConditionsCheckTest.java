@@ -0,0 +1,39 @@
+package com.iot.sensors.config;
+
+import com.iot.sensors.service.SensorRetentionJob;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.mock.env.MockEnvironment;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AotConditionsCheckTest {
+
+    @Test
+    void shouldPassWhenPropertiesMatchTheBeans() {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerBeanDefinition("sensorRetentionJob", new RootBeanDefinition(SensorRetentionJob.class));
+        beanFactory.registerBeanDefinition("openApiConfig", new RootBeanDefinition(OpenApiConfig.class));
+        MockEnvironment environment = new MockEnvironment().withProperty("iot.retention.enabled", "true");
+
+        assertDoesNotThrow(() -> new AotConditionsCheck(beanFactory, environment).afterSingletonsInstantiated());
+    }
+
+    @Test
+    void shouldFailWhenAToggleChangedAfterTheBuild() {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerBeanDefinition("sensorRetentionJob", new RootBeanDefinition(SensorRetentionJob.class));
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("iot.retention.enabled", "false")
+                .withProperty("iot.udp.enabled", "true")
+                .withProperty("springdoc.api-docs.enabled", "false");
+
+        IllegalStateException ex = assertThrows(IllegalStateException.class,
+                () -> new AotConditionsCheck(beanFactory, environment).afterSingletonsInstantiated());
+
+        assertTrue(ex.getMessage().contains("iot.retention.enabled is false but the build has it true"));
+        assertTrue(ex.getMessage().contains("iot.udp.enabled is true but the build has it false"));
+        assertFalse(ex.getMessage().contains("springdoc"));
+    }
+}
@@ -0,0 +1,73 @@
+package com.iot.sensors.controller;
+
+import com.iot.sensors.ingest.IngestGuard;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "iot.ingest.rate-limit.per-second=0.01",
+        "iot.ingest.rate-limit.burst=1",
+        "iot.ingest.shedding.initial-limit=1",
+        "iot.ingest.shedding.min-limit=1",
+        "iot.ingest.shedding.max-in-flight=1",
+        "iot.ingest.shedding.retry-after-seconds=2"})
+@ActiveProfiles("dev")
+class IngestAdmissionTest {
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    private IngestGuard ingestGuard;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+    }
+
+    @Test
+    void shouldAnswer429WithRetryAfterWhenADeviceExceedsItsRate() throws Exception {
+        mockMvc.perform(post("/api/sensors").contentType(MediaType.APPLICATION_JSON).content(reading("Chatty-1")))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(post("/api/sensors").contentType(MediaType.APPLICATION_JSON).content(reading("Chatty-1")))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "100"))
+                .andExpect(jsonPath("$.status").value(429));
+    }
+
+    @Test
+    void shouldAnswer503WithRetryAfterWhenTheConcurrencyLimitIsReached() throws Exception {
+        long admittedAt = ingestGuard.acquire("Slow-Request");
+        try {
+            mockMvc.perform(post("/api/sensors").contentType(MediaType.APPLICATION_JSON).content(reading("Shed-1")))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(header().string(HttpHeaders.RETRY_AFTER, "2"))
+                    .andExpect(jsonPath("$.status").value(503));
+        } finally {
+            ingestGuard.release(admittedAt);
+        }
+
+        mockMvc.perform(post("/api/sensors").contentType(MediaType.APPLICATION_JSON).content(reading("Shed-1")))
+                .andExpect(status().isCreated());
+    }
+
+    private static String reading(String name) {
+        return "{\"name\":\"" + name + "\",\"location\":\"Dock\",\"temperature\":21.5}";
+    }
+}
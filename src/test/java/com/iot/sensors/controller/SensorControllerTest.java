@@ -1,5 +1,6 @@
 package com.iot.sensors.controller;
 
+import com.iot.sensors.dto.SensorRequest;
 import com.iot.sensors.model.Sensor;
 import com.iot.sensors.repository.SensorRepository;
 import com.iot.sensors.service.SensorService;
@@ -97,4 +98,34 @@ class SensorControllerTest {
         // Verify
         assertFalse(sensorRepository.existsById(id));
     }
+
+    @Test
+    void shouldSearchDistinctDevices() {
+        // Create several readings for the same devices
+        sensorService.createSensor(new SensorRequest("Sensor_01", "Lighthouse A", 20.0, 60.0, 1013.0));
+        sensorService.createSensor(new SensorRequest("Sensor_01", "Lighthouse A", 21.0, 61.0, 1013.5));
+        sensorService.createSensor(new SensorRequest("Sensor-02", "Lighthouse B", 22.0, 62.0, 1014.0));
+        sensorService.createSensor(new SensorRequest("SensorX01", "Office", 22.0, 62.0, 1014.0));
+
+        // Prefix search treats '_' literally and returns one entry per device
+        var byPrefix = sensorService.searchDevices("Sensor_", "name", "prefix", 0, 20);
+        assertEquals(1, byPrefix.getContent().size());
+        assertEquals("Sensor_01", byPrefix.getContent().get(0).getName());
+        assertEquals(2, byPrefix.getContent().get(0).getReadings());
+
+        // Substring search over locations, paginated
+        var byLocation = sensorService.searchDevices("ghthouse", "location", "contains", 0, 1);
+        assertEquals(1, byLocation.getContent().size());
+        assertTrue(byLocation.isHasNext());
+        assertEquals("Lighthouse A", byLocation.getContent().get(0).getLocation());
+        var secondPage = sensorService.searchDevices("ghthouse", "location", "contains", 1, 1);
+        assertEquals("Lighthouse B", secondPage.getContent().get(0).getLocation());
+        assertFalse(secondPage.isHasNext());
+
+        // Deleting a device's last reading removes it
+        Long id = sensorService.getSensorsByName("Sensor-02").get(0).getId();
+        sensorService.deleteSensor(id);
+        assertTrue(sensorService.searchDevices("Sensor-", "name", "prefix", 0, 20).getContent().stream()
+                .noneMatch(device -> device.getName().equals("Sensor-02")));
+    }
 }
@@ -0,0 +1,62 @@
+package com.iot.sensors.exception;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class GlobalExceptionHandlerTest {
+
+    @RestController
+    static class FailingController {
+
+        @GetMapping("/invalid")
+        String invalid() {
+            throw new InvalidRequestException("'from' must be before 'to'");
+        }
+
+        @GetMapping("/bug")
+        String bug() {
+            throw new IllegalArgumentException("Points must be added in ascending x order");
+        }
+
+        @GetMapping("/count")
+        String count(@RequestParam int value) {
+            return String.valueOf(value);
+        }
+    }
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(new FailingController())
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+    }
+
+    @Test
+    void shouldMapRequestErrorsTo400() throws Exception {
+        mockMvc.perform(get("/invalid"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("'from' must be before 'to'"));
+        mockMvc.perform(get("/count"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/count").param("value", "many"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldKeepUnexpectedIllegalArgumentsAt500() throws Exception {
+        mockMvc.perform(get("/bug"))
+                .andExpect(status().isInternalServerError())
+                .andExpect(jsonPath("$.status").value(500));
+    }
+}
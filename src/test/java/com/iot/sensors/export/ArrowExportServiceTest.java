@@ -0,0 +1,149 @@
+package com.iot.sensors.export;
+
+import com.iot.sensors.archive.SegmentArchive;
+import com.iot.sensors.exception.ExportUnavailableException;
+import com.iot.sensors.exception.InvalidRequestException;
+import com.iot.sensors.model.Sensor;
+import com.iot.sensors.repository.SensorRepository;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.TimeStampMicroVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.dictionary.DictionaryEncoder;
+import org.apache.arrow.vector.ipc.ArrowStreamReader;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "iot.export.batch-size=2")
+@ActiveProfiles("dev")
+class ArrowExportServiceTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 3, 1, 12, 0, 0, 123_456_000);
+
+    @Autowired
+    private SensorRepository sensorRepository;
+
+    @Autowired
+    private ArrowExportService arrowExportService;
+
+    @Autowired
+    private ObjectProvider<SegmentArchive> segmentArchive;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        sensorRepository.deleteAll();
+    }
+
+    @Test
+    void shouldStreamDictionaryEncodedBatchesWithNullableMetrics() throws Exception {
+        saveAt("Sensor-B", "Office", BASE, 21.5, null, 1013.0);
+        saveAt("Sensor-A", "Warehouse", BASE.plusMinutes(1), null, 55.0, null);
+        saveAt("Sensor-A", "Warehouse", BASE.plusMinutes(2), 19.0, 60.0, 1012.0);
+        saveAt("Sensor-A", "Warehouse", BASE.plusHours(3), 30.0, 30.0, 1000.0);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long exported = arrowExportService.export(null, BASE, BASE.plusHours(1), out);
+
+        assertEquals(3, exported);
+        List<Row> rows = new ArrayList<>();
+        int batches = 0;
+        try (BufferAllocator allocator = new RootAllocator();
+             ArrowStreamReader reader = new ArrowStreamReader(new ByteArrayInputStream(out.toByteArray()), allocator)) {
+            VectorSchemaRoot root = reader.getVectorSchemaRoot();
+            assertEquals(List.of("id", "name", "location", "measurement_time", "temperature", "humidity", "pressure"),
+                    root.getSchema().getFields().stream().map(field -> field.getName()).toList());
+            assertNotNull(root.getSchema().findField("name").getDictionary());
+            while (reader.loadNextBatch()) {
+                batches++;
+                assertTrue(root.getRowCount() <= 2);
+                try (VarCharVector names = decode(reader, root.getVector("name"));
+                     VarCharVector locations = decode(reader, root.getVector("location"))) {
+                    for (int i = 0; i < root.getRowCount(); i++) {
+                        rows.add(new Row(((BigIntVector) root.getVector("id")).get(i), names.getObject(i).toString(),
+                                locations.getObject(i).toString(),
+                                ((TimeStampMicroVector) root.getVector("measurement_time")).get(i),
+                                ((Float8Vector) root.getVector("temperature")).getObject(i),
+                                ((Float8Vector) root.getVector("humidity")).getObject(i),
+                                ((Float8Vector) root.getVector("pressure")).getObject(i)));
+                    }
+                }
+            }
+        }
+
+        assertEquals(2, batches);
+        assertEquals(3, rows.size());
+        rows.sort((a, b) -> Long.compare(a.time, b.time));
+        assertEquals("Sensor-B", rows.get(0).name);
+        assertEquals("Office", rows.get(0).location);
+        assertEquals(BASE.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + 123_456, rows.get(0).time);
+        assertEquals(21.5, rows.get(0).temperature);
+        assertNull(rows.get(0).humidity);
+        assertEquals("Sensor-A", rows.get(1).name);
+        assertNull(rows.get(1).temperature);
+        assertEquals(55.0, rows.get(1).humidity);
+        assertNull(rows.get(1).pressure);
+        assertEquals(1012.0, rows.get(2).pressure);
+    }
+
+    @Test
+    void shouldExportOneSensorAndRejectEmptyRange() throws Exception {
+        saveAt("Sensor-A", "Warehouse", BASE, 20.0, 50.0, 1000.0);
+        saveAt("Sensor-B", "Office", BASE, 20.0, 50.0, 1000.0);
+
+        assertEquals(1, arrowExportService.export("Sensor-A", BASE, BASE.plusHours(1), new ByteArrayOutputStream()));
+        assertThrows(InvalidRequestException.class,
+                () -> arrowExportService.export(null, BASE, BASE, new ByteArrayOutputStream()));
+    }
+
+    private static VarCharVector decode(ArrowStreamReader reader, FieldVector indices) throws Exception {
+        long dictionaryId = indices.getField().getDictionary().getId();
+        return (VarCharVector) DictionaryEncoder.decode(indices, reader.getDictionaryVectors().get(dictionaryId));
+    }
+
+    @Test
+    void shouldFailOnlyTheExportWhenArrowCannotAllocate() {
+        ArrowExportService unavailable = new ArrowExportService(sensorRepository, segmentArchive, transactionManager, 2) {
+            @Override
+            BufferAllocator createAllocator() {
+                throw new ExceptionInInitializerError("java.nio is not open");
+            }
+        };
+
+        assertThrows(ExportUnavailableException.class, unavailable::checkAvailable);
+        assertThrows(ExportUnavailableException.class, () -> unavailable.export(null, BASE, BASE.plusHours(1),
+                new ByteArrayOutputStream()));
+        unavailable.close();
+    }
+
+    private void saveAt(String name, String location, LocalDateTime time, Double temperature, Double humidity,
+                        Double pressure) {
+        Sensor sensor = new Sensor(name, location, temperature, humidity, pressure);
+        sensor.setMeasurementTime(time);
+        sensorRepository.save(sensor);
+    }
+
+    private record Row(long id, String name, String location, long time, Double temperature, Double humidity,
+                       Double pressure) {
+    }
+}
@@ -0,0 +1,30 @@
+package com.iot.sensors.generator;
+
+import com.iot.sensors.repository.SensorRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {"iot.generator.enabled=true", "iot.generator.devices=4", "iot.generator.locations=2",
+        "iot.generator.readings=2500", "iot.generator.batch-size=1000", "iot.generator.end=2025-01-01T00:00:00"})
+@ActiveProfiles("dev")
+class DatasetGeneratorTest {
+
+    @Autowired
+    private SensorRepository sensorRepository;
+
+    @Test
+    void shouldBulkLoadGeneratedReadingsAtStartup() {
+        long generated = sensorRepository.findAll().stream()
+                .filter(sensor -> sensor.getName().startsWith("Sensor-0000"))
+                .count();
+        assertEquals(2500, generated);
+        assertEquals(625, sensorRepository.findByName("Sensor-000001").size());
+        assertTrue(sensorRepository.findOldestMeasurementTime().isAfter(LocalDateTime.of(2024, 12, 30, 0, 0)));
+    }
+}
@@ -0,0 +1,72 @@
+package com.iot.sensors.generator;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReadingGeneratorTest {
+
+    private static final LocalDateTime END = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    @Test
+    void shouldBeDeterministicForASeed() {
+        assertEquals(generate(7, 2_000), generate(7, 2_000));
+        assertNotEquals(generate(7, 2_000), generate(8, 2_000));
+    }
+
+    @Test
+    void shouldFollowSimulatorPatternsInTimeOrder() {
+        ReadingGenerator generator = new ReadingGenerator(1, 20, 4, 10_000, END);
+        LocalDateTime previous = LocalDateTime.MIN;
+        Set<String> names = new HashSet<>();
+        Set<String> locations = new HashSet<>();
+        int[] fieldCounts = new int[4];
+        int count = 0;
+        while (generator.next()) {
+            count++;
+            LocalDateTime time = generator.getMeasurementTime();
+            assertFalse(time.isBefore(previous), "readings must be produced in time order");
+            assertTrue(time.isBefore(END));
+            previous = time;
+            names.add(generator.getName());
+            locations.add(generator.getLocation());
+            int fields = 0;
+            if (generator.getTemperature() != null) {
+                assertTrue(generator.getTemperature() >= 15.0 && generator.getTemperature() <= 30.0);
+                fields++;
+            }
+            if (generator.getHumidity() != null) {
+                fields++;
+            }
+            if (generator.getPressure() != null) {
+                assertTrue(generator.getPressure() >= 980.0 && generator.getPressure() <= 1040.0);
+                fields++;
+            }
+            fieldCounts[fields]++;
+        }
+
+        assertEquals(10_000, count);
+        assertEquals(20, names.size());
+        assertEquals(4, locations.size());
+        assertEquals(0, fieldCounts[0]);
+        for (int fields = 1; fields <= 3; fields++) {
+            assertEquals(count / 3.0, fieldCounts[fields], count * 0.05);
+        }
+    }
+
+    private static List<String> generate(long seed, int readings) {
+        ReadingGenerator generator = new ReadingGenerator(seed, 10, 3, readings, END);
+        List<String> rows = new ArrayList<>();
+        while (generator.next()) {
+            rows.add(generator.getName() + generator.getLocation() + generator.getMeasurementTime()
+                    + generator.getTemperature() + generator.getHumidity() + generator.getPressure());
+        }
+        return rows;
+    }
+}
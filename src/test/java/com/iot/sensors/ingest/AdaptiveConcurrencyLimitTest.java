@@ -0,0 +1,54 @@
+package com.iot.sensors.ingest;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveConcurrencyLimitTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(10);
+
+    @Test
+    void shouldGrowWhileLatencyIsStableAndShrinkWhenRequestsQueue() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(20, 5, 100, 2.0);
+
+        // Saturated at stable latency: grows to the maximum
+        feed(limit, FAST, 200);
+        assertEquals(100, limit.getLimit());
+
+        // Latency rises tenfold as requests queue: the limit collapses towards the minimum
+        feed(limit, SLOW, 100);
+        assertTrue(limit.getLimit() < 20, "limit was " + limit.getLimit());
+        assertEquals(10.0, limit.getLatencyMillis(), 0.5);
+
+        // Latency recovers: the limit grows back
+        feed(limit, FAST, 1000);
+        assertEquals(100, limit.getLimit());
+    }
+
+    @Test
+    void shouldNotGrowWhileMostOfTheLimitIsUnused() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(20, 5, 100, 2.0);
+
+        for (int i = 0; i < 500; i++) {
+            limit.onSample(FAST, 1);
+        }
+
+        assertEquals(20, limit.getLimit());
+    }
+
+    @Test
+    void shouldRejectInconsistentBounds() {
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveConcurrencyLimit(200, 5, 100, 2.0));
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveConcurrencyLimit(20, 5, 100, 0.5));
+    }
+
+    private static void feed(AdaptiveConcurrencyLimit limit, long latencyNanos, int samples) {
+        for (int i = 0; i < samples; i++) {
+            limit.onSample(latencyNanos, limit.getLimit());
+        }
+    }
+}
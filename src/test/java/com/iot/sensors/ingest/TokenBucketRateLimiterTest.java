@@ -0,0 +1,51 @@
+package com.iot.sensors.ingest;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketRateLimiterTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000_000L);
+
+    @Test
+    void shouldAllowBurstThenLimit() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(2.0, 3, now::get);
+
+        // A full bucket allows a burst of three requests
+        assertEquals(0, limiter.tryAcquire("Sensor-1"));
+        assertEquals(0, limiter.tryAcquire("Sensor-1"));
+        assertEquals(0, limiter.tryAcquire("Sensor-1"));
+
+        // The fourth has to wait for the next token (2 per second)
+        long wait = limiter.tryAcquire("Sensor-1");
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(500), wait);
+
+        // Other devices are not affected
+        assertEquals(0, limiter.tryAcquire("Sensor-2"));
+
+        now.addAndGet(wait);
+        assertEquals(0, limiter.tryAcquire("Sensor-1"));
+    }
+
+    @Test
+    void shouldEvictOnlyRefilledBuckets() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(1.0, 2, now::get);
+        limiter.tryAcquire("Sensor-1");
+        limiter.tryAcquire("Sensor-2");
+        limiter.tryAcquire("Sensor-2");
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        limiter.evictIdle();
+
+        assertEquals(1, limiter.size());
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        limiter.evictIdle();
+
+        assertEquals(0, limiter.size());
+    }
+}
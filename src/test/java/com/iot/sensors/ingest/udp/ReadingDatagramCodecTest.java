@@ -0,0 +1,42 @@
+package com.iot.sensors.ingest.udp;
+
+import com.iot.sensors.dto.SensorRequest;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReadingDatagramCodecTest {
+
+    @Test
+    void shouldRoundTripPartialReading() {
+        ByteBuffer buffer = ByteBuffer.allocate(ReadingDatagramCodec.MAX_DATAGRAM_SIZE);
+        ReadingDatagramCodec.encode(new SensorRequest("Sensor-001", "Warehouse A", 22.5, null, 1013.25), buffer);
+        buffer.flip();
+
+        SensorRequest decoded = ReadingDatagramCodec.decode(buffer);
+
+        assertEquals("Sensor-001", decoded.getName());
+        assertEquals("Warehouse A", decoded.getLocation());
+        assertEquals(22.5, decoded.getTemperature());
+        assertNull(decoded.getHumidity());
+        assertEquals(1013.25, decoded.getPressure());
+    }
+
+    @Test
+    void shouldRejectMalformedDatagrams() {
+        // Unknown version
+        assertThrows(IllegalArgumentException.class,
+                () -> ReadingDatagramCodec.decode(ByteBuffer.wrap(new byte[]{0x02, 0x00, 0x00, 0x00})));
+        // Name length beyond the end of the datagram
+        assertThrows(IllegalArgumentException.class,
+                () -> ReadingDatagramCodec.decode(ByteBuffer.wrap(new byte[]{0x01, 0x00, 0x10, 'a'})));
+        // Temperature flagged but missing
+        assertThrows(IllegalArgumentException.class,
+                () -> ReadingDatagramCodec.decode(ByteBuffer.wrap(new byte[]{0x01, 0x01, 0x01, 'a', 0x01, 'b'})));
+        // Invalid UTF-8
+        assertThrows(IllegalArgumentException.class,
+                () -> ReadingDatagramCodec.decode(ByteBuffer.wrap(new byte[]{0x01, 0x00, 0x01, (byte) 0xC3, 0x01, 'b'})));
+    }
+}
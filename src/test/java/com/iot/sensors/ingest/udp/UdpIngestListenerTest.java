@@ -0,0 +1,71 @@
+package com.iot.sensors.ingest.udp;
+
+import com.iot.sensors.dto.SensorRequest;
+import com.iot.sensors.repository.SensorRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {"iot.udp.enabled=true", "iot.udp.port=0"})
+@ActiveProfiles("dev")
+class UdpIngestListenerTest {
+
+    @Autowired
+    private UdpIngestListener listener;
+
+    @Autowired
+    private SensorRepository sensorRepository;
+
+    @BeforeEach
+    void setUp() {
+        sensorRepository.deleteAll();
+    }
+
+    @Test
+    void shouldPersistValidDatagramsAndCountMalformedOnes() throws Exception {
+        long persistedBefore = listener.getStats().getPersisted();
+        long malformedBefore = listener.getStats().getMalformed();
+        long invalidBefore = listener.getStats().getInvalid();
+
+        try (DatagramSocket socket = new DatagramSocket()) {
+            for (int i = 0; i < 5; i++) {
+                send(socket, new SensorRequest("Udp-" + i, "Roof", 20.0 + i, 50.0, null));
+            }
+            send(socket, new SensorRequest(" ", "Roof", 20.0, null, null));
+            byte[] garbage = {0x7F, 0x00};
+            socket.send(new DatagramPacket(garbage, garbage.length, InetAddress.getLoopbackAddress(),
+                    listener.getLocalPort()));
+        }
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        // Datagrams are handled concurrently with the batch writer, so wait for every counter
+        while ((listener.getStats().getPersisted() - persistedBefore < 5
+                || listener.getStats().getMalformed() - malformedBefore < 1
+                || listener.getStats().getInvalid() - invalidBefore < 1)
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+
+        assertEquals(5, listener.getStats().getPersisted() - persistedBefore);
+        assertEquals(1, listener.getStats().getMalformed() - malformedBefore);
+        assertEquals(1, listener.getStats().getInvalid() - invalidBefore);
+        assertEquals(5, sensorRepository.findByLocation("Roof").size());
+        assertEquals(22.0, sensorRepository.findByName("Udp-2").get(0).getTemperature());
+    }
+
+    private void send(DatagramSocket socket, SensorRequest request) throws Exception {
+        ByteBuffer buffer = ByteBuffer.allocate(ReadingDatagramCodec.MAX_DATAGRAM_SIZE);
+        ReadingDatagramCodec.encode(request, buffer);
+        socket.send(new DatagramPacket(buffer.array(), buffer.position(), InetAddress.getLoopbackAddress(),
+                listener.getLocalPort()));
+    }
+}
@@ -0,0 +1,182 @@
+package com.iot.sensors.jdbc;
+
+import com.iot.sensors.archive.ArchiveTieringJob;
+import com.iot.sensors.archive.SegmentArchive;
+import com.iot.sensors.dto.ReceivedReading;
+import com.iot.sensors.dto.SensorPatchRequest;
+import com.iot.sensors.dto.SensorRequest;
+import com.iot.sensors.dto.SensorResponse;
+import com.iot.sensors.exception.ArchivedReadingException;
+import com.iot.sensors.exception.SensorNotFoundException;
+import com.iot.sensors.model.Sensor;
+import com.iot.sensors.repository.SensorRepository;
+import com.iot.sensors.service.SensorService;
+import com.zaxxer.hikari.HikariConfigMXBean;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.DataSourceUnwrapper;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.sql.DataSource;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.iot.sensors.jdbc.SqlStatementAssertions.assertMaxStatements;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "iot.archive.enabled=true")
+@ActiveProfiles("dev")
+class SqlStatementAccountingTest {
+
+    @TempDir
+    static Path archiveDirectory;
+
+    @DynamicPropertySource
+    static void archiveProperties(DynamicPropertyRegistry registry) {
+        registry.add("iot.archive.directory", archiveDirectory::toString);
+    }
+
+    @Autowired
+    private SensorRepository sensorRepository;
+
+    @Autowired
+    private SensorService sensorService;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private ArchiveTieringJob archiveTieringJob;
+
+    @Autowired
+    private SegmentArchive segmentArchive;
+
+    @BeforeEach
+    void setUp() {
+        sensorRepository.deleteAll();
+    }
+
+    @Test
+    void shouldKeepCrudEndpointsToMinimalRoundTrips() {
+        SensorResponse created = assertMaxStatements(1, () -> sensorService.createSensor(request("Sensor-1", 21.0)));
+        assertMaxStatements(1, () -> sensorService.getSensorById(created.getId()));
+        assertMaxStatements(2, () -> sensorService.updateSensor(created.getId(), request("Sensor-1", 22.0)));
+        assertMaxStatements(1, () -> sensorService.patchSensor(created.getId(),
+                new SensorPatchRequest(null, null, 23.0, null, null)));
+        assertMaxStatements(1, () -> sensorService.deleteSensor(created.getId()));
+        assertThrows(SensorNotFoundException.class,
+                () -> assertMaxStatements(1, () -> sensorService.deleteSensor(created.getId())));
+    }
+
+    @Test
+    void shouldKeepPatchAndDeleteToOneStatementWhileArchiveHoldsReadings() {
+        Sensor old = new Sensor("Sensor-Old", "Warehouse", 18.0, 60.0, 1013.0);
+        old.setMeasurementTime(LocalDateTime.now().minusDays(10));
+        Long oldId = sensorRepository.save(old).getId();
+        archiveTieringJob.archive(LocalDateTime.now().minusDays(2));
+        assertNotNull(segmentArchive.getWatermark());
+        try {
+            SensorResponse created = sensorService.createSensor(request("Sensor-1", 21.0));
+
+            assertMaxStatements(1, () -> sensorService.patchSensor(created.getId(),
+                    new SensorPatchRequest(null, null, 23.0, null, null)));
+            assertMaxStatements(1, () -> sensorService.deleteSensor(created.getId()));
+            assertThrows(ArchivedReadingException.class, () -> sensorService.patchSensor(oldId,
+                    new SensorPatchRequest(null, null, 23.0, null, null)));
+            assertThrows(ArchivedReadingException.class, () -> sensorService.deleteSensor(oldId));
+        } finally {
+            // Keep the watermark but hide the archived reading from the other tests
+            segmentArchive.delete(LocalDateTime.now(), null);
+        }
+    }
+
+    @Test
+    void shouldWriteIngestBatchesWithOneStatement() {
+        LocalDateTime receivedAt = LocalDateTime.of(2026, 3, 1, 12, 0, 0, 123_456_000);
+        List<ReceivedReading> batch = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            batch.add(new ReceivedReading(request("Sensor-" + i, 20.0 + i / 10.0), receivedAt.plusSeconds(i)));
+        }
+
+        assertMaxStatements(1, () -> sensorService.createSensors(batch));
+
+        assertEquals(50, sensorRepository.count());
+        assertEquals(receivedAt.plusSeconds(7), sensorRepository.findByName("Sensor-7").get(0).getMeasurementTime());
+    }
+
+    @Test
+    void shouldCountStatementsAndRows() {
+        sensorService.createSensor(request("Sensor-1", 21.0));
+        sensorService.createSensor(request("Sensor-2", 22.0));
+
+        SqlStatistics.begin("test");
+        int found;
+        try {
+            found = sensorService.getAllSensors().size();
+        } finally {
+            SqlStatistics statistics = SqlStatistics.end();
+            assertEquals(1, statistics.getStatementCount());
+            assertEquals(2, statistics.getRows());
+            assertTrue(statistics.getStatements().get(0).toLowerCase().contains("from sensors"));
+        }
+        assertEquals(2, found);
+    }
+
+    @Test
+    void shouldPatchOnlySuppliedColumns() {
+        SensorResponse created = sensorService.createSensor(request("Sensor-1", 21.0));
+
+        SqlStatistics.begin("test");
+        try {
+            sensorService.patchSensor(created.getId(), new SensorPatchRequest(null, null, 23.0, null, null));
+        } finally {
+            String update = SqlStatistics.end().getStatements().get(0).toLowerCase();
+            assertTrue(update.contains("temperature"));
+            assertFalse(update.contains("humidity") || update.contains("pressure") || update.contains("location"));
+        }
+    }
+
+    @Test
+    void shouldNotCountOutsideUnitOfWork() {
+        assertNull(SqlStatistics.end());
+        sensorService.createSensor(request("Sensor-1", 21.0));
+        assertNull(SqlStatistics.end());
+    }
+
+    @Test
+    void shouldLabelRequestsWithMatchedPattern() {
+        SqlAccountingInterceptor interceptor = new SqlAccountingInterceptor(20);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/sensors/42");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/sensors/{id}");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertTrue(interceptor.preHandle(request, response, new Object()));
+        assertEquals("GET /api/sensors/{id}", SqlStatistics.current().getEndpoint());
+        interceptor.afterCompletion(request, response, new Object(), null);
+        assertNull(SqlStatistics.current());
+    }
+
+    @Test
+    void shouldKeepPoolReachableThroughWrapper() throws SQLException {
+        assertFalse(dataSource instanceof HikariDataSource, "accounting is enabled in the dev profile");
+        assertTrue(dataSource.isWrapperFor(HikariDataSource.class));
+        assertNotNull(dataSource.unwrap(HikariDataSource.class).getHikariPoolMXBean());
+        assertNotNull(DataSourceUnwrapper.unwrap(dataSource, HikariConfigMXBean.class, HikariDataSource.class));
+    }
+
+    private static SensorRequest request(String name, double temperature) {
+        return new SensorRequest(name, "Warehouse", temperature, 60.0, 1013.0);
+    }
+}
@@ -0,0 +1,38 @@
+package com.iot.sensors.jdbc;
+
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Asserts an upper bound on the SQL statements a piece of code issues, so extra round trips
+ * and N+1 patterns fail the build instead of showing up in production.
+ */
+public final class SqlStatementAssertions {
+
+    private SqlStatementAssertions() {
+    }
+
+    public static <T> T assertMaxStatements(int max, Supplier<T> action) {
+        SqlStatistics.begin("test");
+        T result;
+        SqlStatistics statistics;
+        try {
+            result = action.get();
+        } finally {
+            statistics = SqlStatistics.end();
+        }
+        if (statistics.getStatementCount() > max) {
+            fail("Expected at most " + max + " SQL statements but " + statistics.getStatementCount()
+                    + " were executed: " + String.join("; ", statistics.getStatements()));
+        }
+        return result;
+    }
+
+    public static void assertMaxStatements(int max, Runnable action) {
+        assertMaxStatements(max, () -> {
+            action.run();
+            return null;
+        });
+    }
+}
@@ -0,0 +1,94 @@
+package com.iot.sensors.json;
+
+import com.iot.sensors.dto.SensorResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jackson.JacksonComponentModule;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import tools.jackson.databind.JacksonModule;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.databind.module.SimpleModule;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("dev")
+class SensorResponseSerializerTest {
+
+    // Boot-configured mapper of the application, which registers SensorResponseSerializer
+    @Autowired
+    private JsonMapper jsonMapper;
+
+    @Test
+    void shouldWriteSameJsonAsDefaultBeanSerializer() {
+        JsonMapper tuned = jsonMapper;
+        JsonMapper defaultMapper = withoutJacksonComponents().build();
+        assertTrue(tuned.registeredModules().stream().anyMatch(JacksonComponentModule.class::isInstance));
+        assertTrue(defaultMapper.registeredModules().stream().noneMatch(JacksonComponentModule.class::isInstance));
+        List<SensorResponse> responses = new ArrayList<>();
+        LocalDateTime base = LocalDateTime.of(2025, 3, 1, 9, 5, 7);
+        int[] nanos = {0, 100_000_000, 120_000_000, 123_000_000, 123_456_000, 123_456_789, 1, 999_999_999};
+        for (int i = 0; i < nanos.length; i++) {
+            SensorResponse response = response(i, base.plusDays(i % 3).withNano(nanos[i]));
+            response.setHumidity(i % 2 == 0 ? null : 40.0 + i / 10.0);
+            response.setUpdatedAt(i % 3 == 0 ? base.plusHours(i) : null);
+            responses.add(response);
+        }
+        responses.add(response(100, LocalDateTime.of(1, 1, 1, 0, 0)));
+        responses.add(response(101, LocalDateTime.of(12025, 12, 31, 23, 59, 59, 5)));
+        responses.add(new SensorResponse());
+
+        for (SensorResponse response : responses) {
+            assertEquals(defaultMapper.writeValueAsString(response), tuned.writeValueAsString(response));
+        }
+        assertEquals(defaultMapper.writeValueAsString(responses), tuned.writeValueAsString(responses));
+    }
+
+    @Test
+    void shouldOmitNullMetricsWhenEnabled() {
+        SensorResponse response = response(1, LocalDateTime.of(2025, 3, 1, 9, 5, 7));
+        response.setHumidity(null);
+        response.setPressure(null);
+
+        String json = mapper(true).writeValueAsString(response);
+
+        assertEquals("{\"createdAt\":\"2025-03-01T09:05:07\",\"id\":1,\"location\":\"Warehouse\","
+                + "\"measurementTime\":\"2025-03-01T09:05:07\",\"name\":\"Sensor-1\",\"temperature\":21.5,"
+                + "\"updatedAt\":null}", json);
+    }
+
+    private JsonMapper mapper(boolean omitNullMetrics) {
+        SimpleModule module = new SimpleModule();
+        module.addSerializer(SensorResponse.class, new SensorResponseSerializer(omitNullMetrics));
+        return withoutJacksonComponents().addModule(module).build();
+    }
+
+    /**
+     * The application's mapper configuration without the {@code @JacksonComponent} serializers,
+     * so {@code SensorResponse} falls back to the default bean serializer.
+     */
+    private JsonMapper.Builder withoutJacksonComponents() {
+        List<JacksonModule> modules = jsonMapper.registeredModules().stream()
+                .filter(module -> !(module instanceof JacksonComponentModule))
+                .toList();
+        return jsonMapper.rebuild().removeAllModules().addModules(modules);
+    }
+
+    private static SensorResponse response(long id, LocalDateTime time) {
+        SensorResponse response = new SensorResponse();
+        response.setId(id);
+        response.setName("Sensor-" + id);
+        response.setLocation("Warehouse");
+        response.setTemperature(21.5);
+        response.setHumidity(60.25);
+        response.setPressure(1013.0);
+        response.setMeasurementTime(time);
+        response.setCreatedAt(time);
+        return response;
+    }
+}
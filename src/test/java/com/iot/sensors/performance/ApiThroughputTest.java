@@ -0,0 +1,324 @@
+package com.iot.sensors.performance;
+
+import com.iot.sensors.model.Sensor;
+import com.iot.sensors.repository.SensorRepository;
+import com.iot.sensors.stats.TDigest;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Opt-in end-to-end performance suite ({@code mvn test -Pperf}). Boots the application on a
+ * random port with H2 and drives a mixed workload through the HTTP API from a fixed number of
+ * client threads, then compares throughput and latency percentiles with
+ * {@code performance/baseline.properties}.
+ * <p>
+ * Reads (by id, by location) and updates only touch the pre-seeded rows, which keep their
+ * location, so the read set has the same size for the whole run. Creates and deletes use
+ * separate write-only locations.
+ * <p>
+ * The baseline depends on the machine that recorded it, so the comparison is only reported;
+ * run with {@code -Dperf.enforce-baseline=true} on that machine to fail on regressions.
+ * Tunables (system properties): {@code perf.concurrency}, {@code perf.warmup-seconds},
+ * {@code perf.duration-seconds}. Results are written to {@code target/performance}; run with
+ * {@code -Dperf.update-baseline=true} to store them as the new baseline after an intended change.
+ */
+@Tag("performance")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "iot.ingest.rate-limit.enabled=false",
+        "iot.ingest.shedding.enabled=false",
+        "iot.stats.rebuild-on-startup=false",
+        "spring.jpa.show-sql=false",
+        "logging.level.com.iot.sensors=INFO"
+})
+@ActiveProfiles("dev")
+class ApiThroughputTest {
+
+    private static final Path BASELINE = Paths.get("src/test/resources/performance/baseline.properties");
+    private static final Path RESULTS = Paths.get("target/performance/results.properties");
+    private static final int LOCATIONS = 50;
+    private static final int SEED_READINGS_PER_LOCATION = 40;
+    private static final Pattern ID = Pattern.compile("\"id\"\\s*:\\s*(\\d+)");
+
+    /**
+     * Workload mix; weights add up to 100.
+     */
+    private enum Operation {
+        CREATE(40), GET_BY_ID(25), GET_BY_LOCATION(15), UPDATE(12), DELETE(8);
+
+        private final int weight;
+
+        Operation(int weight) {
+            this.weight = weight;
+        }
+
+        private String key() {
+            return name().toLowerCase(Locale.ROOT).replace('_', '-');
+        }
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private SensorRepository sensorRepository;
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    @Test
+    void mixedWorkloadShouldNotRegress() throws Exception {
+        int concurrency = Integer.getInteger("perf.concurrency", 16);
+        long warmupNanos = Duration.ofSeconds(Long.getLong("perf.warmup-seconds", 5)).toNanos();
+        long measureNanos = Duration.ofSeconds(Long.getLong("perf.duration-seconds", 20)).toNanos();
+
+        long[] seededIds = seed();
+        long start = System.nanoTime();
+        long measureStart = start + warmupNanos;
+        long measureEnd = measureStart + measureNanos;
+
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        List<Future<Recorder>> futures = new ArrayList<>();
+        for (int i = 0; i < concurrency; i++) {
+            futures.add(executor.submit(() -> runClient(seededIds, measureStart, measureEnd)));
+        }
+        Recorder total = new Recorder();
+        for (Future<Recorder> future : futures) {
+            total.merge(future.get());
+        }
+        executor.shutdown();
+
+        Properties results = total.toProperties(measureNanos / 1e9);
+        writeResults(results, concurrency);
+        assertEquals(0, total.errors, "requests failed during the run");
+
+        if (Boolean.getBoolean("perf.update-baseline")) {
+            Files.createDirectories(BASELINE.getParent());
+            try (OutputStream out = Files.newOutputStream(BASELINE)) {
+                results.setProperty("throughput-tolerance", "0.25");
+                results.setProperty("latency-tolerance", "0.50");
+                results.store(out, "Baseline for ApiThroughputTest, concurrency " + concurrency);
+            }
+            return;
+        }
+        compareWithBaseline(results, Boolean.getBoolean("perf.enforce-baseline"));
+    }
+
+    private long[] seed() {
+        sensorRepository.deleteAll();
+        List<Sensor> sensors = new ArrayList<>();
+        for (int location = 0; location < LOCATIONS; location++) {
+            for (int i = 0; i < SEED_READINGS_PER_LOCATION; i++) {
+                sensors.add(new Sensor("Perf-" + i, seedLocation(sensors.size()), 21.0, 50.0, 1013.0));
+            }
+        }
+        return sensorRepository.saveAll(sensors).stream().mapToLong(Sensor::getId).toArray();
+    }
+
+    private Recorder runClient(long[] seededIds, long measureStart, long measureEnd) throws Exception {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        ArrayDeque<Long> ownIds = new ArrayDeque<>();
+        Recorder recorder = new Recorder();
+        while (true) {
+            long started = System.nanoTime();
+            if (started >= measureEnd) {
+                return recorder;
+            }
+            Operation operation = pick(random.nextInt(100));
+            if (operation == Operation.DELETE && ownIds.isEmpty()) {
+                operation = Operation.CREATE;
+            }
+            HttpResponse<String> response = client.send(request(operation, random, seededIds, ownIds),
+                    HttpResponse.BodyHandlers.ofString());
+            long elapsed = System.nanoTime() - started;
+            boolean ok = response.statusCode() / 100 == 2;
+            if (ok && operation == Operation.CREATE) {
+                Matcher id = ID.matcher(response.body());
+                if (id.find()) {
+                    ownIds.add(Long.parseLong(id.group(1)));
+                }
+            }
+            if (started >= measureStart) {
+                recorder.record(operation, elapsed, ok);
+            }
+        }
+    }
+
+    private HttpRequest request(Operation operation, ThreadLocalRandom random, long[] seededIds,
+                                ArrayDeque<Long> ownIds) {
+        String base = "http://localhost:" + port + "/api/sensors";
+        switch (operation) {
+            case CREATE:
+                return json(HttpRequest.newBuilder(URI.create(base)), "POST",
+                        body(random, "Perf-Write-" + random.nextInt(LOCATIONS)));
+            case GET_BY_ID:
+                return HttpRequest.newBuilder(URI.create(base + "/" + seededIds[random.nextInt(seededIds.length)]))
+                        .GET().build();
+            case GET_BY_LOCATION:
+                return HttpRequest.newBuilder(URI.create(base + "/location/" + seedLocation(
+                        random.nextInt(seededIds.length)))).GET().build();
+            case UPDATE:
+                int index = random.nextInt(seededIds.length);
+                return json(HttpRequest.newBuilder(URI.create(base + "/" + seededIds[index])), "PUT",
+                        body(random, seedLocation(index)));
+            default:
+                return HttpRequest.newBuilder(URI.create(base + "/" + ownIds.poll())).DELETE().build();
+        }
+    }
+
+    /**
+     * Location of the seeded reading at {@code index}; updates keep it.
+     */
+    private static String seedLocation(int index) {
+        return "Perf-Location-" + index / SEED_READINGS_PER_LOCATION;
+    }
+
+    private static HttpRequest json(HttpRequest.Builder builder, String method, String body) {
+        return builder.header("Content-Type", "application/json")
+                .method(method, HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private static String body(ThreadLocalRandom random, String location) {
+        return String.format(Locale.ROOT,
+                "{\"name\":\"Perf-%d\",\"location\":\"%s\",\"temperature\":%.2f,\"humidity\":%.2f,\"pressure\":%.2f}",
+                random.nextInt(1000), location, 15 + random.nextDouble() * 15, 30 + random.nextDouble() * 50,
+                980 + random.nextDouble() * 60);
+    }
+
+    private static Operation pick(int roll) {
+        for (Operation operation : Operation.values()) {
+            roll -= operation.weight;
+            if (roll < 0) {
+                return operation;
+            }
+        }
+        return Operation.CREATE;
+    }
+
+    private static void writeResults(Properties results, int concurrency) throws IOException {
+        Files.createDirectories(RESULTS.getParent());
+        try (OutputStream out = Files.newOutputStream(RESULTS)) {
+            results.store(out, "ApiThroughputTest results, concurrency " + concurrency);
+        }
+        StringBuilder table = new StringBuilder("\nPerformance results (ops/s, latency ms)\n");
+        for (String key : new String[]{"total", "create", "get-by-id", "get-by-location", "update", "delete"}) {
+            table.append(String.format(Locale.ROOT, "%-16s %10s ops/s  p50 %8s  p95 %8s  p99 %8s%n", key,
+                    results.getProperty(key + ".throughput"), results.getProperty(key + ".p50-ms"),
+                    results.getProperty(key + ".p95-ms"), results.getProperty(key + ".p99-ms")));
+        }
+        System.out.println(table);
+    }
+
+    /**
+     * Throughput may not drop, and p95/p99 latency may not grow, by more than the baseline's
+     * tolerances. Metrics missing from the baseline are not checked. Regressions are printed,
+     * and only fail the test when {@code enforce} is set.
+     */
+    private static void compareWithBaseline(Properties results, boolean enforce) throws IOException {
+        if (!Files.exists(BASELINE)) {
+            assertFalse(enforce, "No baseline at " + BASELINE + "; run with -Dperf.update-baseline=true");
+            return;
+        }
+        Properties baseline = new Properties();
+        try (InputStream in = Files.newInputStream(BASELINE)) {
+            baseline.load(in);
+        }
+        double throughputTolerance = Double.parseDouble(baseline.getProperty("throughput-tolerance", "0.25"));
+        double latencyTolerance = Double.parseDouble(baseline.getProperty("latency-tolerance", "0.50"));
+        List<String> regressions = new ArrayList<>();
+        for (String key : baseline.stringPropertyNames()) {
+            String actual = results.getProperty(key);
+            if (actual == null) {
+                continue;
+            }
+            double expected = Double.parseDouble(baseline.getProperty(key));
+            double value = Double.parseDouble(actual);
+            if (key.endsWith(".throughput") && value < expected * (1 - throughputTolerance)) {
+                regressions.add(String.format(Locale.ROOT, "%s: %.1f < %.1f", key, value, expected));
+            } else if ((key.endsWith(".p95-ms") || key.endsWith(".p99-ms")) && value > expected * (1 + latencyTolerance)) {
+                regressions.add(String.format(Locale.ROOT, "%s: %.2f > %.2f", key, value, expected));
+            }
+        }
+        if (enforce) {
+            assertTrue(regressions.isEmpty(), "Performance regressed beyond baseline tolerance: " + regressions);
+        } else if (!regressions.isEmpty()) {
+            System.out.println("Slower than the baseline (not enforced, the baseline is machine-specific): "
+                    + regressions);
+        }
+    }
+
+    /**
+     * Per-thread latency sketches (microseconds) and counters per operation.
+     */
+    private static final class Recorder {
+
+        private final Map<Operation, TDigest> latencies = new EnumMap<>(Operation.class);
+        private final TDigest all = new TDigest(200);
+        private long errors;
+
+        void record(Operation operation, long elapsedNanos, boolean ok) {
+            if (!ok) {
+                errors++;
+                return;
+            }
+            double micros = elapsedNanos / 1_000.0;
+            latencies.computeIfAbsent(operation, key -> new TDigest(200)).add(micros);
+            all.add(micros);
+        }
+
+        void merge(Recorder other) {
+            other.latencies.forEach((operation, digest) ->
+                    latencies.computeIfAbsent(operation, key -> new TDigest(200)).add(digest));
+            all.add(other.all);
+            errors += other.errors;
+        }
+
+        Properties toProperties(double seconds) {
+            Properties properties = new Properties();
+            put(properties, "total", all, seconds);
+            latencies.forEach((operation, digest) -> put(properties, operation.key(), digest, seconds));
+            properties.setProperty("errors", Long.toString(errors));
+            return properties;
+        }
+
+        private static void put(Properties properties, String key, TDigest digest, double seconds) {
+            properties.setProperty(key + ".throughput", String.format(Locale.ROOT, "%.1f", digest.size() / seconds));
+            properties.setProperty(key + ".p50-ms", String.format(Locale.ROOT, "%.3f", digest.quantile(0.50) / 1000));
+            properties.setProperty(key + ".p95-ms", String.format(Locale.ROOT, "%.3f", digest.quantile(0.95) / 1000));
+            properties.setProperty(key + ".p99-ms", String.format(Locale.ROOT, "%.3f", digest.quantile(0.99) / 1000));
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.iot.sensors.performance;
+
+import com.iot.sensors.dto.SensorResponse;
+import com.iot.sensors.generator.ReadingGenerator;
+import com.iot.sensors.json.SensorResponseSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.databind.module.SimpleModule;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization cost of a list response (as returned by the location and name endpoints)
+ * with the default bean serializer and with {@link SensorResponseSerializer}. Readings come
+ * from the {@link ReadingGenerator}, so most have one or two of the three metrics.
+ * <p>
+ * Not run by {@code mvn test}; after {@code mvn test-compile} run:
+ * <pre>
+ * mvn -q dependency:build-classpath -Dmdep.outputFile=target/test-classpath.txt
+ * java -cp target/test-classes:target/classes:$(cat target/test-classpath.txt) \
+ *      org.openjdk.jmh.Main SensorResponseSerializationBenchmark -prof gc
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SensorResponseSerializationBenchmark {
+
+    @Param({"1000"})
+    private int readings;
+
+    private List<SensorResponse> responses;
+    private JsonMapper defaultMapper;
+    private JsonMapper tunedMapper;
+    private JsonMapper omitNullsMapper;
+
+    @Setup
+    public void setUp() {
+        ReadingGenerator generator = new ReadingGenerator(42, 50, 5, readings, LocalDateTime.of(2025, 1, 1, 0, 0));
+        responses = new ArrayList<>(readings);
+        long id = 1;
+        while (generator.next()) {
+            SensorResponse response = new SensorResponse();
+            response.setId(id++);
+            response.setName(generator.getName());
+            response.setLocation(generator.getLocation());
+            response.setTemperature(generator.getTemperature());
+            response.setHumidity(generator.getHumidity());
+            response.setPressure(generator.getPressure());
+            response.setMeasurementTime(generator.getMeasurementTime());
+            response.setCreatedAt(generator.getMeasurementTime().withNano(123_456_000));
+            responses.add(response);
+        }
+        defaultMapper = JsonMapper.builder().build();
+        tunedMapper = mapper(false);
+        omitNullsMapper = mapper(true);
+    }
+
+    @Benchmark
+    public byte[] defaultSerializer() {
+        return defaultMapper.writeValueAsBytes(responses);
+    }
+
+    @Benchmark
+    public byte[] tunedSerializer() {
+        return tunedMapper.writeValueAsBytes(responses);
+    }
+
+    @Benchmark
+    public byte[] tunedSerializerOmittingNulls() {
+        return omitNullsMapper.writeValueAsBytes(responses);
+    }
+
+    private static JsonMapper mapper(boolean omitNullMetrics) {
+        SimpleModule module = new SimpleModule();
+        module.addSerializer(SensorResponse.class, new SensorResponseSerializer(omitNullMetrics));
+        return JsonMapper.builder().addModule(module).build();
+    }
+}
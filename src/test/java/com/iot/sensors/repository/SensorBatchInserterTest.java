@@ -0,0 +1,59 @@
+package com.iot.sensors.repository;
+
+import com.iot.sensors.model.Sensor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("dev")
+class SensorBatchInserterTest {
+
+    private static final String AWKWARD = "Bay\t1\nrow\r2 \\N back\\slash";
+
+    @Autowired
+    private SensorBatchInserter sensorBatchInserter;
+
+    @Autowired
+    private SensorRepository sensorRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        sensorRepository.deleteAll();
+    }
+
+    @Test
+    void shouldEscapeCopyTextColumns() {
+        StringBuilder buffer = new StringBuilder();
+        SensorBatchInserter.appendCopyText(buffer, AWKWARD);
+
+        assertEquals("Bay\\t1\\nrow\\r2 \\\\N back\\\\slash\t", buffer.toString());
+    }
+
+    @Test
+    void shouldStoreControlCharactersAndMicrosecondsAsSent() {
+        LocalDateTime time = LocalDateTime.of(2025, 3, 1, 12, 0, 0, 123_456_000);
+        Sensor sensor = new Sensor(AWKWARD, "Dock\\N", 21.0, null, 1013.0);
+        sensor.setMeasurementTime(time);
+        sensor.setCreatedAt(time);
+
+        transactionTemplate.executeWithoutResult(status -> sensorBatchInserter.insert(List.of(sensor)));
+
+        Sensor stored = sensorRepository.findAll().get(0);
+        assertEquals(AWKWARD, stored.getName());
+        assertEquals("Dock\\N", stored.getLocation());
+        assertNull(stored.getHumidity());
+        assertEquals(time, stored.getMeasurementTime());
+    }
+}
@@ -0,0 +1,53 @@
+package com.iot.sensors.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("dev")
+class QuantileSketchLeaseTest {
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    void shouldRefuseASecondInstanceUntilTheLeaseIsReleased() {
+        QuantileSketchLease first = new QuantileSketchLease(dataSource, true, 30);
+        QuantileSketchLease second = new QuantileSketchLease(dataSource, true, 30);
+        try {
+            first.afterSingletonsInstantiated();
+            first.renew();
+
+            IllegalStateException ex = assertThrows(IllegalStateException.class, second::afterSingletonsInstantiated);
+            assertTrue(ex.getMessage().contains("single instance"));
+
+            first.release();
+            second.afterSingletonsInstantiated();
+        } finally {
+            first.release();
+            second.release();
+        }
+    }
+
+    @Test
+    void shouldTakeOverAnExpiredLease() throws Exception {
+        QuantileSketchLease crashed = new QuantileSketchLease(dataSource, true, 0);
+        QuantileSketchLease next = new QuantileSketchLease(dataSource, true, 30);
+        try {
+            crashed.afterSingletonsInstantiated();
+            Thread.sleep(10);
+
+            next.afterSingletonsInstantiated();
+
+            assertThrows(IllegalStateException.class, () -> new QuantileSketchLease(dataSource, true, 30).acquire());
+        } finally {
+            next.release();
+        }
+    }
+}
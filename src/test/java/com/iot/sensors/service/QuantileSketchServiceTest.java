@@ -0,0 +1,105 @@
+package com.iot.sensors.service;
+
+import com.iot.sensors.dto.QuantileResponse;
+import com.iot.sensors.dto.SensorPatchRequest;
+import com.iot.sensors.dto.SensorRequest;
+import com.iot.sensors.dto.SensorResponse;
+import com.iot.sensors.model.Metric;
+import com.iot.sensors.repository.SensorRepository;
+import com.iot.sensors.service.QuantileSketchService.Dimension;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {"iot.purge.pause-ms=0", "iot.recalibration.pause-ms=0"})
+@ActiveProfiles("dev")
+class QuantileSketchServiceTest {
+
+    @Autowired
+    private SensorRepository sensorRepository;
+
+    @Autowired
+    private SensorService sensorService;
+
+    @Autowired
+    private SensorPurgeService sensorPurgeService;
+
+    @Autowired
+    private SensorRecalibrationService sensorRecalibrationService;
+
+    @Autowired
+    private QuantileSketchService quantileSketchService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        quantileSketchService.awaitRebuilds();
+        sensorRepository.deleteAll();
+    }
+
+    @Test
+    void shouldRebuildSketchesWhenReadingsChange() throws Exception {
+        SensorResponse first = sensorService.createSensor(request("Sketch-1", "Sketch-Lab", 10.0));
+        SensorResponse second = sensorService.createSensor(request("Sketch-1", "Sketch-Lab", 20.0));
+
+        sensorService.updateSensor(first.getId(), request("Sketch-1", "Sketch-Lab", 30.0));
+        quantileSketchService.awaitRebuilds();
+        assertEquals(2, sketch(Dimension.SENSOR, "Sketch-1").getCount());
+        assertEquals(20.0, sketch(Dimension.SENSOR, "Sketch-1").getMin());
+        assertEquals(30.0, sketch(Dimension.LOCATION, "Sketch-Lab").getMax());
+
+        sensorService.patchSensor(first.getId(), new SensorPatchRequest("Sketch-2", "Sketch-Office", null, null, null));
+        quantileSketchService.awaitRebuilds();
+        assertEquals(1, sketch(Dimension.SENSOR, "Sketch-1").getCount());
+        assertEquals(1, sketch(Dimension.LOCATION, "Sketch-Lab").getCount());
+        assertEquals(30.0, sketch(Dimension.SENSOR, "Sketch-2").getMax());
+
+        sensorService.patchSensor(first.getId(), new SensorPatchRequest(null, null, 35.0, null, null));
+        sensorService.deleteSensor(second.getId());
+        quantileSketchService.awaitRebuilds();
+        assertEquals(35.0, sketch(Dimension.LOCATION, "Sketch-Office").getMax());
+        assertEquals(0, sketch(Dimension.SENSOR, "Sketch-1").getCount());
+        assertEquals(0, sketch(Dimension.LOCATION, "Sketch-Lab").getCount());
+    }
+
+    @Test
+    void shouldRebuildSketchesAfterRecalibrationAndPurge() throws Exception {
+        sensorService.createSensor(request("Sketch-3", "Sketch-Roof", 10.0));
+        sensorService.createSensor(request("Sketch-4", "Sketch-Roof", 12.0));
+        sensorService.createSensor(request("Sketch-4", "Sketch-Cellar", 14.0));
+        LocalDateTime now = LocalDateTime.now();
+
+        sensorRecalibrationService.recalibrate("Sketch-3", Metric.TEMPERATURE, -5.0,
+                now.minusHours(1), now.plusMinutes(1));
+        quantileSketchService.awaitRebuilds();
+        assertEquals(5.0, sketch(Dimension.SENSOR, "Sketch-3").getMin());
+        assertEquals(5.0, sketch(Dimension.LOCATION, "Sketch-Roof").getMin());
+
+        sensorPurgeService.purge(now.plusMinutes(1), "Sketch-Roof", "test");
+        quantileSketchService.awaitRebuilds();
+        assertEquals(0, sketch(Dimension.LOCATION, "Sketch-Roof").getCount());
+        assertEquals(0, sketch(Dimension.SENSOR, "Sketch-3").getCount());
+        assertEquals(1, sketch(Dimension.SENSOR, "Sketch-4").getCount());
+
+        sensorPurgeService.purge(now.plusMinutes(1), null, "test");
+        quantileSketchService.awaitRebuilds();
+        assertEquals(0, sketch(Dimension.LOCATION, "Sketch-Cellar").getCount());
+        assertEquals(0, sketch(Dimension.SENSOR, "Sketch-4").getCount());
+    }
+
+    private QuantileResponse sketch(Dimension dimension, String key) {
+        LocalDateTime now = LocalDateTime.now();
+        return quantileSketchService.quantiles(dimension, key, Metric.TEMPERATURE,
+                now.minusDays(1), now.plusDays(1), List.of(0.5));
+    }
+
+    private static SensorRequest request(String name, String location, double temperature) {
+        return new SensorRequest(name, location, temperature, null, null);
+    }
+}
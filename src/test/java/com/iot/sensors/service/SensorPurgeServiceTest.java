@@ -0,0 +1,103 @@
+package com.iot.sensors.service;
+
+import com.iot.sensors.dto.PurgeResponse;
+import com.iot.sensors.exception.SensorNotFoundException;
+import com.iot.sensors.model.Sensor;
+import com.iot.sensors.repository.SensorRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {"iot.purge.chunk-size=2", "iot.purge.pause-ms=0"})
+@ActiveProfiles("dev")
+class SensorPurgeServiceTest {
+
+    @Autowired
+    private SensorRepository sensorRepository;
+
+    @Autowired
+    private SensorPurgeService sensorPurgeService;
+
+    @Autowired
+    private SensorService sensorService;
+
+    @BeforeEach
+    void setUp() {
+        sensorRepository.deleteAll();
+    }
+
+    @Test
+    void shouldPurgeOldReadingsInChunks() {
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < 5; i++) {
+            saveAt("Old-" + i, "Warehouse", now.minusDays(10));
+        }
+        saveAt("Old-Office", "Office", now.minusDays(10));
+        saveAt("Recent", "Warehouse", now.minusHours(1));
+
+        PurgeResponse response = sensorPurgeService.purge(now.minusDays(1), "Warehouse", "test");
+
+        assertEquals(5, response.getDeleted());
+        assertEquals(3, response.getChunks());
+        assertFalse(response.isRunning());
+        assertEquals(2, sensorRepository.count());
+        assertEquals(1, sensorRepository.findByLocation("Warehouse").size());
+    }
+
+    @Test
+    void shouldPurgeAllLocationsWhenLocationIsOmitted() {
+        LocalDateTime now = LocalDateTime.now();
+        saveAt("Old-1", "Warehouse", now.minusDays(10));
+        saveAt("Old-2", "Office", now.minusDays(10));
+        saveAt("Recent", "Office", now);
+
+        PurgeResponse response = sensorPurgeService.purge(now.minusDays(1), null, "test");
+
+        assertEquals(2, response.getDeleted());
+        assertEquals(1, sensorRepository.count());
+    }
+
+    @Test
+    void shouldRunApiPurgesInBackground() throws InterruptedException {
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < 5; i++) {
+            saveAt("Old-" + i, "Office", now.minusDays(10).plusMinutes(i));
+        }
+        saveAt("Recent", "Office", now);
+
+        PurgeResponse started = sensorPurgeService.startPurge(now.minusDays(1), null, "api");
+        assertEquals("api", started.getTrigger());
+
+        PurgeResponse status = sensorPurgeService.getStatus();
+        for (int i = 0; i < 100 && status.isRunning(); i++) {
+            Thread.sleep(50);
+            status = sensorPurgeService.getStatus();
+        }
+        assertFalse(status.isRunning());
+        assertNull(status.getError());
+        assertEquals(5, status.getDeleted());
+        assertEquals(1, sensorRepository.count());
+    }
+
+    @Test
+    void shouldDeleteSingleSensorOrFailWhenMissing() {
+        Sensor saved = saveAt("To-Delete", "Office", LocalDateTime.now());
+
+        sensorService.deleteSensor(saved.getId());
+
+        assertFalse(sensorRepository.existsById(saved.getId()));
+        assertThrows(SensorNotFoundException.class, () -> sensorService.deleteSensor(saved.getId()));
+    }
+
+    private Sensor saveAt(String name, String location, LocalDateTime measurementTime) {
+        Sensor sensor = new Sensor(name, location, 20.0, 50.0, 1013.0);
+        sensor.setMeasurementTime(measurementTime);
+        return sensorRepository.save(sensor);
+    }
+}
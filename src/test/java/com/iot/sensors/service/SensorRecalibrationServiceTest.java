@@ -0,0 +1,161 @@
+package com.iot.sensors.service;
+
+import com.iot.sensors.archive.SegmentArchive;
+import com.iot.sensors.dto.RecalibrationResponse;
+import com.iot.sensors.dto.SensorPatchRequest;
+import com.iot.sensors.exception.InvalidRequestException;
+import com.iot.sensors.exception.RecalibrationFailedException;
+import com.iot.sensors.exception.SensorNotFoundException;
+import com.iot.sensors.model.Metric;
+import com.iot.sensors.model.Sensor;
+import com.iot.sensors.repository.SensorRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {"iot.recalibration.chunk-size=2", "iot.recalibration.pause-ms=0"})
+@ActiveProfiles("dev")
+class SensorRecalibrationServiceTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 3, 1, 12, 0);
+
+    @Autowired
+    private SensorRepository sensorRepository;
+
+    @Autowired
+    private SensorRecalibrationService sensorRecalibrationService;
+
+    @Autowired
+    private SensorService sensorService;
+
+    @Autowired
+    private QuantileSketchService quantileSketchService;
+
+    @Autowired
+    private ObjectProvider<SegmentArchive> segmentArchive;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        sensorRepository.deleteAll();
+    }
+
+    @Test
+    void shouldRecalibrateOneMetricOfOneSensorInRangeInChunks() {
+        Long[] inRange = new Long[5];
+        for (int i = 0; i < 5; i++) {
+            // Two readings share a timestamp to exercise the (time, id) keyset
+            inRange[i] = saveAt("Sensor-1", BASE.plusMinutes(i == 2 ? 1 : i), 1000.0).getId();
+        }
+        Long missingPressure = saveAt("Sensor-1", BASE.plusMinutes(5), null).getId();
+        Long outOfRange = saveAt("Sensor-1", BASE.plusHours(2), 1000.0).getId();
+        Long otherSensor = saveAt("Sensor-2", BASE.plusMinutes(1), 1000.0).getId();
+
+        RecalibrationResponse response = sensorRecalibrationService.recalibrate("Sensor-1", Metric.PRESSURE, 2.5,
+                BASE, BASE.plusHours(1));
+
+        assertEquals(5, response.getUpdated());
+        assertEquals(3, response.getChunks());
+        for (Long id : inRange) {
+            Sensor sensor = sensorRepository.findById(id).orElseThrow();
+            assertEquals(1002.5, sensor.getPressure());
+            assertEquals(20.0, sensor.getTemperature());
+            assertNotNull(sensor.getUpdatedAt());
+        }
+        Sensor untouched = sensorRepository.findById(missingPressure).orElseThrow();
+        assertNull(untouched.getPressure());
+        assertNull(untouched.getUpdatedAt());
+        assertEquals(1000.0, sensorRepository.findById(outOfRange).orElseThrow().getPressure());
+        assertEquals(1000.0, sensorRepository.findById(otherSensor).orElseThrow().getPressure());
+    }
+
+    @Test
+    void shouldResumeFailedRecalibrationWithoutApplyingTwice() {
+        Long[] ids = new Long[5];
+        for (int i = 0; i < 5; i++) {
+            ids[i] = saveAt("Sensor-1", BASE.plusMinutes(i), 1000.0).getId();
+        }
+        // The pause after the first chunk fails on an interrupted thread
+        SensorRecalibrationService failing = new SensorRecalibrationService(sensorRepository, quantileSketchService,
+                segmentArchive, transactionManager, 2, 1);
+        Thread.currentThread().interrupt();
+        RecalibrationFailedException failure;
+        try {
+            failure = assertThrows(RecalibrationFailedException.class, () -> failing.recalibrate("Sensor-1",
+                    Metric.PRESSURE, 2.5, BASE, BASE.plusHours(1)));
+        } finally {
+            Thread.interrupted();
+        }
+        RecalibrationResponse progress = failure.getProgress();
+        assertFalse(progress.isCompleted());
+        assertEquals(2, progress.getUpdated());
+        assertEquals(BASE.plusMinutes(1), progress.getResumeAfterTime());
+        assertEquals(ids[1], progress.getResumeAfterId());
+        assertNotNull(progress.getError());
+
+        RecalibrationResponse resumed = sensorRecalibrationService.recalibrate("Sensor-1", Metric.PRESSURE, 2.5,
+                BASE, BASE.plusHours(1), progress.getResumeAfterTime(), progress.getResumeAfterId());
+
+        assertTrue(resumed.isCompleted());
+        assertEquals(3, resumed.getUpdated());
+        for (Long id : ids) {
+            assertEquals(1002.5, sensorRepository.findById(id).orElseThrow().getPressure());
+        }
+    }
+
+    @Test
+    void shouldRejectInvalidRecalibration() {
+        assertThrows(InvalidRequestException.class, () -> sensorRecalibrationService.recalibrate(
+                "Sensor-1", Metric.PRESSURE, 1.0, BASE, BASE));
+        assertThrows(InvalidRequestException.class, () -> sensorRecalibrationService.recalibrate(
+                "Sensor-1", Metric.PRESSURE, 0.0, BASE, BASE.plusHours(1)));
+        assertThrows(InvalidRequestException.class, () -> sensorRecalibrationService.recalibrate(
+                "Sensor-1", Metric.PRESSURE, Double.NaN, BASE, BASE.plusHours(1)));
+        assertThrows(InvalidRequestException.class, () -> sensorRecalibrationService.recalibrate(
+                "Sensor-1", Metric.PRESSURE, 1.0, BASE, BASE.plusHours(1), BASE, null));
+        assertThrows(InvalidRequestException.class, () -> sensorRecalibrationService.recalibrate(
+                "Sensor-1", Metric.PRESSURE, 1.0, BASE, BASE.plusHours(1), BASE.plusHours(1), 1L));
+    }
+
+    @Test
+    void shouldPatchOnlySuppliedFields() {
+        Long id = saveAt("Sensor-1", BASE, 1000.0).getId();
+
+        sensorService.patchSensor(id, new SensorPatchRequest(null, "Office", null, 55.0, null));
+
+        Sensor patched = sensorRepository.findById(id).orElseThrow();
+        assertEquals("Sensor-1", patched.getName());
+        assertEquals("Office", patched.getLocation());
+        assertEquals(20.0, patched.getTemperature());
+        assertEquals(55.0, patched.getHumidity());
+        assertEquals(1000.0, patched.getPressure());
+        assertEquals(BASE, patched.getMeasurementTime());
+        assertNotNull(patched.getUpdatedAt());
+    }
+
+    @Test
+    void shouldRejectEmptyOrMissingPatch() {
+        Long id = saveAt("Sensor-1", BASE, 1000.0).getId();
+
+        assertThrows(InvalidRequestException.class,
+                () -> sensorService.patchSensor(id, new SensorPatchRequest()));
+        assertThrows(SensorNotFoundException.class,
+                () -> sensorService.patchSensor(id + 1, new SensorPatchRequest(null, null, 21.0, null, null)));
+    }
+
+    private Sensor saveAt(String name, LocalDateTime measurementTime, Double pressure) {
+        Sensor sensor = new Sensor(name, "Warehouse", 20.0, 60.0, pressure);
+        sensor.setMeasurementTime(measurementTime);
+        return sensorRepository.save(sensor);
+    }
+}
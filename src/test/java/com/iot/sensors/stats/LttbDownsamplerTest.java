@@ -0,0 +1,73 @@
+package com.iot.sensors.stats;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LttbDownsamplerTest {
+
+    @Test
+    void shouldKeepAllPointsBelowThreshold() {
+        LttbDownsampler downsampler = new LttbDownsampler(0, 5, 10);
+        for (int i = 0; i < 5; i++) {
+            downsampler.add(i, i * 2.0);
+        }
+        downsampler.finish();
+
+        assertEquals(5, downsampler.size());
+        assertEquals(8.0, downsampler.getY(4));
+    }
+
+    @Test
+    void shouldDownsampleToThresholdKeepingEndsAndPeaks() {
+        int total = 10_000;
+        LttbDownsampler downsampler = new LttbDownsampler(0, total * 1_000L, 100);
+        for (int i = 0; i < total; i++) {
+            double value = i == 4_321 ? 500.0 : Math.sin(i / 100.0);
+            downsampler.add(i * 1_000L, value);
+        }
+        downsampler.finish();
+
+        assertEquals(100, downsampler.size());
+        assertEquals(0, downsampler.getX(0));
+        assertEquals((total - 1) * 1_000L, downsampler.getX(99));
+        boolean peakKept = false;
+        for (int i = 0; i < downsampler.size(); i++) {
+            if (i > 0) {
+                assertTrue(downsampler.getX(i) > downsampler.getX(i - 1), "points must stay ordered");
+            }
+            peakKept |= downsampler.getY(i) == 500.0;
+        }
+        assertTrue(peakKept, "the spike must survive downsampling");
+    }
+
+    @Test
+    void shouldSkipEmptyBucketsAndKeepDipsOfDenseOnes() {
+        LttbDownsampler downsampler = new LttbDownsampler(0, 1_000_000L, 12);
+        // Ten buckets of 100,000: only the first and the last two receive points
+        for (long x = 0; x < 100_000; x += 10) {
+            downsampler.add(x, x == 55_550 ? -50.0 : 1.0);
+        }
+        for (long x = 800_000; x < 1_000_000; x += 10) {
+            downsampler.add(x, 1.0);
+        }
+        downsampler.finish();
+
+        assertEquals(5, downsampler.size());
+        assertEquals(-50.0, downsampler.getY(1));
+        assertEquals(999_990, downsampler.getX(4));
+        assertThrows(IllegalStateException.class, () -> downsampler.add(1_000_000, 1.0));
+    }
+
+    @Test
+    void shouldRejectPointsOutOfOrder() {
+        LttbDownsampler downsampler = new LttbDownsampler(0, 1_000, 10);
+        downsampler.add(100, 1.0);
+        downsampler.add(200, 2.0);
+        downsampler.add(200, 3.0);
+
+        assertThrows(IllegalArgumentException.class, () -> downsampler.add(150, 4.0));
+        downsampler.finish();
+        assertEquals(3, downsampler.size());
+    }
+}
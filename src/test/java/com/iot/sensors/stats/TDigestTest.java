@@ -0,0 +1,83 @@
+package com.iot.sensors.stats;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TDigestTest {
+
+    @Test
+    void shouldEstimateQuantilesOfUniformData() {
+        TDigest digest = new TDigest(100);
+        Random random = new Random(42);
+        double[] values = new double[100_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextDouble() * 100;
+            digest.add(values[i]);
+        }
+        Arrays.sort(values);
+
+        assertEquals(values.length, digest.size());
+        for (double q : new double[]{0.5, 0.95, 0.99}) {
+            double exact = values[(int) (q * (values.length - 1))];
+            assertEquals(exact, digest.quantile(q), 0.5, "quantile " + q);
+        }
+        assertEquals(values[0], digest.quantile(0), 1e-9);
+        assertEquals(values[values.length - 1], digest.quantile(1), 1e-9);
+    }
+
+    @Test
+    void shouldMergeDigests() {
+        TDigest low = new TDigest(100);
+        TDigest high = new TDigest(100);
+        for (int i = 0; i < 10_000; i++) {
+            low.add(i);
+            high.add(10_000 + i);
+        }
+
+        TDigest merged = new TDigest(100);
+        merged.add(low);
+        merged.add(high);
+
+        assertEquals(20_000, merged.size());
+        assertEquals(10_000, merged.quantile(0.5), 100);
+        assertEquals(19_800, merged.quantile(0.99), 40);
+        assertEquals(0, merged.getMin());
+        assertEquals(19_999, merged.getMax());
+    }
+
+    @Test
+    void shouldKeepCentroidCountBounded() {
+        TDigest digest = new TDigest(50);
+        Random random = new Random(7);
+        for (int i = 0; i < 1_000_000; i++) {
+            digest.add(random.nextGaussian());
+        }
+        assertTrue(digest.centroidCount() <= 52, "centroids: " + digest.centroidCount());
+        assertEquals(0, digest.quantile(0.5), 0.02);
+    }
+
+    @Test
+    void shouldReturnNaNWhenEmpty() {
+        TDigest digest = new TDigest(100);
+        assertTrue(Double.isNaN(digest.quantile(0.5)));
+        assertEquals(0, digest.size());
+    }
+
+    @Test
+    void shouldAllocateLazily() {
+        TDigest digest = new TDigest(100);
+        assertEquals(0, digest.allocatedDoubles());
+
+        digest.add(1.0);
+        assertTrue(digest.allocatedDoubles() <= 8);
+
+        for (int i = 0; i < 10_000; i++) {
+            digest.add(i);
+        }
+        assertTrue(digest.allocatedDoubles() <= 2 * 103 + 50);
+    }
+}